@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.auth;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Identities kept in memory by their credentials, like cookies or tokens,
+ * until they expire.
+ *
+ * <p>The entries are split into stripes by the hash codes of their keys,
+ * each stripe with its own lock and its own share of the max size, so that
+ * concurrent requests with different credentials rarely wait for each
+ * other. The least recently used entries of a stripe are evicted first.
+ * With zero max size nothing is kept.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+final class Identities {
+
+    /**
+     * Max number of stripes.
+     */
+    private static final int STRIPES = 16;
+
+    /**
+     * Stripes, each in the order of access.
+     */
+    private final List<Map<String, Identities.Kept>> stripes;
+
+    /**
+     * Ctor.
+     * @param max Max number of identities to keep
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    Identities(final int max) {
+        final int total = Math.min(Math.max(max, 0), Identities.STRIPES);
+        this.stripes = new ArrayList<>(total);
+        for (int idx = 0; idx < total; ++idx) {
+            final int limit = max / total + Identities.extra(idx, max, total);
+            this.stripes.add(
+                new LinkedHashMap<String, Identities.Kept>(
+                    0, 0.75f, true
+                ) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(
+                        final Map.Entry<String, Identities.Kept> eldest) {
+                        return this.size() > limit;
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Find the identity, which is not expired yet.
+     * @param key Credentials
+     * @return Identity or NULL, if there is none
+     */
+    public Identity get(final String key) {
+        Identity idt = null;
+        if (!this.stripes.isEmpty()) {
+            final Map<String, Identities.Kept> stripe = this.stripe(key);
+            synchronized (stripe) {
+                final Identities.Kept kept = stripe.get(key);
+                if (kept != null) {
+                    if (kept.expired()) {
+                        stripe.remove(key);
+                    } else {
+                        idt = kept.identity();
+                    }
+                }
+            }
+        }
+        return idt;
+    }
+
+    /**
+     * Keep the identity.
+     * @param key Credentials
+     * @param idt Identity
+     * @param expires When it expires, in milliseconds
+     */
+    public void put(final String key, final Identity idt, final long expires) {
+        if (!this.stripes.isEmpty()) {
+            final Map<String, Identities.Kept> stripe = this.stripe(key);
+            synchronized (stripe) {
+                stripe.put(key, new Identities.Kept(idt, expires));
+            }
+        }
+    }
+
+    /**
+     * Stripe of the key.
+     * @param key Credentials
+     * @return Stripe
+     */
+    private Map<String, Identities.Kept> stripe(final String key) {
+        final int hash = key.hashCode();
+        return this.stripes.get(
+            // @checkstyle MagicNumber (1 line)
+            Math.floorMod(hash ^ (hash >>> 16), this.stripes.size())
+        );
+    }
+
+    /**
+     * Whether the stripe takes one of the entries left after
+     * the even split.
+     * @param idx Number of the stripe
+     * @param max Max number of entries
+     * @param total Number of stripes
+     * @return One or zero
+     */
+    private static int extra(final int idx, final int max, final int total) {
+        final int extra;
+        if (idx < max % total) {
+            extra = 1;
+        } else {
+            extra = 0;
+        }
+        return extra;
+    }
+
+    /**
+     * Identity kept.
+     *
+     * <p>The class is immutable and thread-safe.
+     *
+     * @since 2.0
+     */
+    private static final class Kept {
+
+        /**
+         * Identity.
+         */
+        private final Identity idt;
+
+        /**
+         * When it expires, in milliseconds.
+         */
+        private final long expires;
+
+        /**
+         * Ctor.
+         * @param identity Identity
+         * @param time When it expires
+         */
+        Kept(final Identity identity, final long time) {
+            this.idt = identity;
+            this.expires = time;
+        }
+
+        /**
+         * The identity.
+         * @return Identity
+         */
+        public Identity identity() {
+            return this.idt;
+        }
+
+        /**
+         * Whether it's expired already.
+         * @return TRUE if expired
+         */
+        public boolean expired() {
+            return System.currentTimeMillis() >= this.expires;
+        }
+    }
+}
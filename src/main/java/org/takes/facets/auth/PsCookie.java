@@ -41,12 +41,21 @@ import org.takes.misc.Opt;
 /**
  * Pass via cookie information.
  *
+ * <p>Decoding a cookie may be expensive, if the codec decrypts and
+ * verifies it, while the same user sends the same cookie again and again.
+ * That's why the pass may keep up to the given number of decoded
+ * identities in memory, by the values of their cookies, for no longer
+ * than the max age of the cookie. The least recently used ones are
+ * evicted first, see {@link Identities}. For example:
+ *
+ * <pre> new PsCookie(codec, "PsCookie", 30L, 10_000)</pre>
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = "cache")
 public final class PsCookie implements Pass {
 
     /**
@@ -64,6 +73,11 @@ public final class PsCookie implements Pass {
      */
     private final long age;
 
+    /**
+     * Decoded identities by values of cookies.
+     */
+    private final Identities cache;
+
     /**
      * Ctor.
      * @param cdc Codec
@@ -90,9 +104,23 @@ public final class PsCookie implements Pass {
      * @since 0.9.6
      */
     public PsCookie(final Codec cdc, final String name, final long days) {
+        this(cdc, name, days, 0);
+    }
+
+    /**
+     * Ctor.
+     * @param cdc Codec
+     * @param name Cookie name
+     * @param days Max age in days
+     * @param max Max number of decoded identities to keep in memory
+     * @since 2.0
+     */
+    public PsCookie(final Codec cdc, final String name, final long days,
+        final int max) {
         this.codec = cdc;
         this.cookie = name;
         this.age = days;
+        this.cache = new Identities(max);
     }
 
     @Override
@@ -101,13 +129,7 @@ public final class PsCookie implements Pass {
             .cookie(this.cookie).iterator();
         Opt<Identity> user = new Opt.Empty<>();
         if (cookies.hasNext()) {
-            user = new Opt.Single<>(
-                this.codec.decode(
-                    new UncheckedBytes(
-                        new BytesOf(cookies.next())
-                    ).asBytes()
-                )
-            );
+            user = new Opt.Single<>(this.decode(cookies.next()));
         }
         return user;
     }
@@ -131,4 +153,24 @@ public final class PsCookie implements Pass {
             ).print()
         );
     }
+
+    /**
+     * Decode the value of the cookie, or find it decoded already.
+     * @param value Value of the cookie
+     * @return Identity
+     * @throws IOException If fails
+     */
+    private Identity decode(final String value) throws IOException {
+        Identity idt = this.cache.get(value);
+        if (idt == null) {
+            idt = this.codec.decode(
+                new UncheckedBytes(new BytesOf(value)).asBytes()
+            );
+            this.cache.put(
+                value, idt,
+                System.currentTimeMillis() + TimeUnit.DAYS.toMillis(this.age)
+            );
+        }
+        return idt;
+    }
 }
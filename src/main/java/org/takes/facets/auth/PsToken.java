@@ -23,29 +23,29 @@
  */
 package org.takes.facets.auth;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.StringReader;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.Arrays;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
 import lombok.EqualsAndHashCode;
-import org.cactoos.iterable.Mapped;
-import org.cactoos.scalar.Constant;
-import org.cactoos.scalar.FirstOf;
-import org.cactoos.scalar.Not;
-import org.cactoos.scalar.Unchecked;
-import org.cactoos.text.IsBlank;
-import org.cactoos.text.StartsWith;
-import org.cactoos.text.TextOf;
-import org.cactoos.text.Trimmed;
-import org.cactoos.text.UncheckedText;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.facets.auth.signatures.SiHmac;
+import org.takes.facets.auth.signatures.Signature;
 import org.takes.misc.Opt;
 import org.takes.rq.RqHeaders;
 import org.takes.rs.RsJson;
@@ -54,6 +54,17 @@ import org.takes.rs.RsJson;
  * Pass with JSON Web Token (JWT).
  *
  * <p>
+ * The token is accepted if its signature is valid and it is not expired
+ * yet, according to its {@code exp}, either in seconds since the epoch
+ * or in ISO format, as {@link Token.Jwt} makes it. The pass may keep up
+ * to the given number of verified tokens in memory, so that the same
+ * token is not verified and parsed again, until it expires or the max
+ * age passes. The least recently used ones are evicted first, see
+ * {@link Identities}:
+ *
+ * <pre> new PsToken(key, 3600L, 10_000)</pre>
+ *
+ * <p>
  * The class is immutable and thread-safe.
  *
  * @since 1.4
@@ -61,13 +72,18 @@ import org.takes.rs.RsJson;
  * @checkstyle AvoidDuplicateLiterals (500 lines)
  * @checkstyle ExecutableStatementCountCheck (500 lines)
  */
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = "cache")
 public final class PsToken implements Pass {
 
     /**
      * Signature algorithm.
      */
-    private final SiHmac signature;
+    private final Signature signature;
+
+    /**
+     * Length of the signature, in bits.
+     */
+    private final int bits;
 
     /**
      * HTTP Header to read.
@@ -79,6 +95,11 @@ public final class PsToken implements Pass {
      */
     private final long age;
 
+    /**
+     * Identities of verified tokens.
+     */
+    private final Identities cache;
+
     /**
      * Ctor. This is equivalent to {@code PsToken(key, 3600)}, signing with 256
      * bit.
@@ -88,7 +109,7 @@ public final class PsToken implements Pass {
      */
     public PsToken(final String key) {
         // @checkstyle MagicNumber (1 line)
-        this(new SiHmac(key, SiHmac.HMAC256), 3600L);
+        this(key, 3600L);
     }
 
     /**
@@ -100,7 +121,22 @@ public final class PsToken implements Pass {
      *  The life span of the token.
      */
     public PsToken(final String key, final long seconds) {
-        this(new SiHmac(key, SiHmac.HMAC256), seconds);
+        this(key, seconds, 0);
+    }
+
+    /**
+     * Ctor. This uses a 256-bit HMAC signature.
+     *
+     * @param key
+     *  The secret key to sign with
+     * @param seconds
+     *  The life span of the token.
+     * @param max
+     *  Max number of verified tokens to keep in memory
+     * @since 2.0
+     */
+    public PsToken(final String key, final long seconds, final int max) {
+        this(new SiHmac(key, SiHmac.HMAC256), SiHmac.HMAC256, seconds, max);
     }
 
     /**
@@ -108,65 +144,34 @@ public final class PsToken implements Pass {
      *
      * @param sign
      *  A {@see Signature}.
+     * @param length
+     *  Length of the signature, in bits
      * @param seconds
      *  The life span of the token.
+     * @param max
+     *  Max number of verified tokens to keep in memory
+     * @checkstyle ParameterNumberCheck (3 lines)
      */
-    private PsToken(final SiHmac sign, final long seconds) {
+    PsToken(final Signature sign, final int length, final long seconds,
+        final int max) {
         this.header = "Authorization";
         this.signature = sign;
+        this.bits = length;
         this.age = seconds;
+        this.cache = new Identities(max);
     }
 
     @Override
     public Opt<Identity> enter(final Request req) throws IOException {
-        // @checkstyle ExecutableStatementCount (100 lines)
         Opt<Identity> user = new Opt.Empty<>();
-        final UncheckedText head = new Unchecked<>(
-            new FirstOf<>(
-                text -> new StartsWith(
-                    new Trimmed(text),
-                    new TextOf("Bearer")
-                ).value(),
-                new Mapped<>(
-                    UncheckedText::new,
-                    new RqHeaders.Base(req).header(this.header)
-                ),
-                new Constant<>(new UncheckedText(""))
-            )
-        ).value();
-        if (new Unchecked<>(new Not(new IsBlank(head))).value()) {
-            final String jwt = new UncheckedText(
-                new Trimmed(new TextOf(head.asString().split(" ", 2)[1]))
-            ).asString();
-            final String[] parts = jwt.split("\\.");
-            final byte[] jwtheader = parts[0].getBytes(
-                Charset.defaultCharset()
-            );
-            final byte[] jwtpayload = parts[1].getBytes(
-                Charset.defaultCharset()
-            );
-            final byte[] jwtsign = parts[2].getBytes(Charset.defaultCharset());
-            final ByteBuffer tocheck = ByteBuffer.allocate(
-                jwtheader.length + jwtpayload.length + 1
-            );
-            tocheck.put(jwtheader).put(".".getBytes(Charset.defaultCharset()))
-                .put(jwtpayload);
-            final byte[] checked = this.signature.sign(tocheck.array());
-            if (Arrays.equals(jwtsign, checked)) {
-                try (JsonReader rdr = Json.createReader(
-                    new StringReader(
-                        new String(
-                            Base64.getDecoder().decode(jwtpayload),
-                            Charset.defaultCharset()
-                        )
-                    )
-                )) {
-                    user = new Opt.Single<>(
-                        new Identity.Simple(
-                            rdr.readObject().getString(Token.Jwt.SUBJECT)
-                        )
-                    );
-                }
+        final String jwt = this.token(req);
+        if (!jwt.isEmpty()) {
+            Identity idt = this.cache.get(jwt);
+            if (idt == null) {
+                idt = this.verify(jwt);
+            }
+            if (idt != null) {
+                user = new Opt.Single<>(idt);
             }
         }
         return user;
@@ -175,9 +180,7 @@ public final class PsToken implements Pass {
     @Override
     public Response exit(final Response res,
         final Identity idt) throws Exception {
-        final byte[] jwtheader = new Token.Jose(
-            this.signature.bitlength()
-        ).encoded();
+        final byte[] jwtheader = new Token.Jose(this.bits).encoded();
         final byte[] jwtpayload = new Token.Jwt(idt, this.age).encoded();
         final ByteBuffer tosign = ByteBuffer.allocate(
             jwtheader.length + jwtpayload.length + 1
@@ -201,4 +204,110 @@ public final class PsToken implements Pass {
             return new RsJson(target);
         }
     }
+
+    /**
+     * Find the bearer token in the request.
+     * @param req Request
+     * @return Token or empty string, if there is none
+     * @throws IOException If fails
+     */
+    private String token(final Request req) throws IOException {
+        String jwt = "";
+        for (final String value : new RqHeaders.Base(req).header(this.header)) {
+            final String trimmed = value.trim();
+            if (trimmed.startsWith("Bearer")) {
+                final int space = trimmed.indexOf(' ');
+                if (space > 0) {
+                    jwt = trimmed.substring(space + 1).trim();
+                }
+                break;
+            }
+        }
+        return jwt;
+    }
+
+    /**
+     * Verify the signature and the expiration of the token, and keep
+     * its identity if it's valid.
+     * @param jwt Token
+     * @return Identity or NULL, if the token is not valid
+     * @throws IOException If fails
+     */
+    private Identity verify(final String jwt) throws IOException {
+        final int first = jwt.indexOf('.');
+        final int second = jwt.indexOf('.', first + 1);
+        Identity idt = null;
+        if (first > 0 && second > first
+            && jwt.indexOf('.', second + 1) < 0
+            && MessageDigest.isEqual(
+                jwt.substring(second + 1).getBytes(Charset.defaultCharset()),
+                this.signature.sign(
+                    jwt.substring(0, second).getBytes(Charset.defaultCharset())
+                )
+            )) {
+            final JsonObject payload;
+            try (JsonReader rdr = Json.createReader(
+                new ByteArrayInputStream(
+                    Base64.getDecoder().decode(
+                        jwt.substring(first + 1, second)
+                    )
+                )
+            )) {
+                payload = rdr.readObject();
+            }
+            final long now = System.currentTimeMillis();
+            final long expires = Math.min(
+                PsToken.expiration(payload.get(Token.Jwt.EXPIRATION)),
+                now + TimeUnit.SECONDS.toMillis(this.age)
+            );
+            if (expires > now) {
+                idt = new Identity.Simple(payload.getString(Token.Jwt.SUBJECT));
+                this.cache.put(jwt, idt, expires);
+            }
+        }
+        return idt;
+    }
+
+    /**
+     * When the token expires, according to its {@code exp}.
+     *
+     * <p>It's either seconds since the epoch, or a date in ISO format.
+     * A date in the format of {@link Token.Jwt}, without seconds, is valid
+     * until the end of its minute.
+     * @param exp Value of {@code exp} or NULL
+     * @return Time in milliseconds
+     * @throws IOException If the value is invalid
+     */
+    private static long expiration(final JsonValue exp) throws IOException {
+        final long time;
+        if (exp == null) {
+            time = Long.MAX_VALUE;
+        } else if (exp instanceof JsonNumber) {
+            time = TimeUnit.SECONDS.toMillis(
+                ((JsonNumber) exp).longValue()
+            );
+        } else if (exp instanceof JsonString) {
+            final String text = ((JsonString) exp).getString();
+            long parsed;
+            try {
+                parsed = LocalDateTime.parse(text, Token.Jwt.PARSER)
+                    .toInstant(ZoneOffset.UTC).toEpochMilli()
+                    + TimeUnit.MINUTES.toMillis(1L);
+            } catch (final DateTimeParseException ex) {
+                try {
+                    parsed = OffsetDateTime.parse(text)
+                        .toInstant().toEpochMilli();
+                } catch (final DateTimeParseException iso) {
+                    iso.addSuppressed(ex);
+                    throw new IOException(iso);
+                }
+            }
+            time = parsed;
+        } else {
+            throw new IOException(
+                new JsonException(String.format("Invalid exp: %s", exp))
+            );
+        }
+        return time;
+    }
 }
@@ -25,6 +25,7 @@ package org.takes.facets.auth;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.time.format.DateTimeFormatter;
 import java.util.Base64;
 import java.util.Calendar;
 import java.util.TimeZone;
@@ -129,6 +130,12 @@ public interface Token {
          */
         private static final String ISOFORMAT = "%tFT%<tRZ";
 
+        /**
+         * Parser of the dates printed with {@link #ISOFORMAT}, in UTC.
+         */
+        static final DateTimeFormatter PARSER =
+            DateTimeFormatter.ofPattern("uuuu-MM-dd'T'HH:mm'Z'");
+
         /**
          * JWT object.
          */
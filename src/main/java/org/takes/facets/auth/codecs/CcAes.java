@@ -31,6 +31,8 @@ import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -47,6 +49,12 @@ import org.takes.facets.auth.Identity;
  * which can be applied
  * <a href="https://crypto.stackexchange.com/a/205">before or after</a>
  * encryption.
+ * <p>Ciphers are not looked up in providers on every call: up to
+ * sixteen of them are kept in a pool, shared by all threads, and each
+ * is initialized again with the key and a new IV when taken from it,
+ * since decoding cookies happens on every request. The pool works the
+ * same way for virtual threads, which are never reused, see
+ * {@link org.takes.http.BkVirtual}.
  * <p>The class is immutable and thread-safe.
  * @since 0.13.8
  */
@@ -62,6 +70,17 @@ public final class CcAes implements Codec {
      */
     private static final int BLOCK = 16;
 
+    /**
+     * Maximum number of ciphers in the pool.
+     */
+    private static final int POOL = 16;
+
+    /**
+     * Ciphers, which are not in use.
+     */
+    private static final BlockingQueue<Cipher> CIPHERS =
+        new ArrayBlockingQueue<>(CcAes.POOL);
+
     /**
      * Original codec.
      */
@@ -144,8 +163,9 @@ public final class CcAes implements Codec {
             this.random.nextBytes(vector);
             final byte[] message = this.cipher(
                 Cipher.ENCRYPT_MODE,
-                new IvParameterSpec(vector)
-            ).doFinal(bytes);
+                new IvParameterSpec(vector),
+                bytes
+            );
             final byte[] res = new byte[vector.length + message.length];
             System.arraycopy(vector, 0, res, 0, vector.length);
             System.arraycopy(
@@ -203,31 +223,44 @@ public final class CcAes implements Codec {
             );
             return this.cipher(
                 Cipher.DECRYPT_MODE,
-                new IvParameterSpec(vector)
-            ).doFinal(message);
+                new IvParameterSpec(vector),
+                message
+            );
         } catch (final BadPaddingException | IllegalBlockSizeException ex) {
             throw new DecodingException(ex);
         }
     }
 
     /**
-     * Create new cipher based on the valid mode from {@link Cipher} class.
+     * Take a cipher from the pool, initialize it in the valid mode
+     * from {@link Cipher} class, process the bytes and give it back.
      *
      * @param mode Either Cipher.ENRYPT_MODE or Cipher.DECRYPT_MODE
      * @param spec Param spec (IV)
-     * @return The cipher
+     * @param bytes Bytes to process
+     * @return Processed bytes
      * @throws IOException For any unexpected exceptions
+     * @throws BadPaddingException If the padding is wrong
+     * @throws IllegalBlockSizeException If the length is wrong
      */
-    private Cipher cipher(final int mode, final AlgorithmParameterSpec spec)
-        throws IOException {
+    private byte[] cipher(final int mode, final AlgorithmParameterSpec spec,
+        final byte[] bytes) throws IOException, BadPaddingException,
+        IllegalBlockSizeException {
+        Cipher cipher = CcAes.CIPHERS.poll();
         try {
-            final Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
+            if (cipher == null) {
+                cipher = Cipher.getInstance("AES/CBC/PKCS5PADDING");
+            }
             cipher.init(mode, this.key, spec, this.random);
-            return cipher;
+            return cipher.doFinal(bytes);
         } catch (final InvalidKeyException | NoSuchAlgorithmException
             | InvalidAlgorithmParameterException
             | NoSuchPaddingException ex) {
             throw new IOException(ex);
+        } finally {
+            if (cipher != null) {
+                CcAes.CIPHERS.offer(cipher);
+            }
         }
     }
 }
@@ -0,0 +1,227 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.auth.codecs;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.Map;
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.EqualsAndHashCode;
+import org.takes.facets.auth.Identity;
+
+/**
+ * AES-GCM codec, which encrypts and authenticates in one pass.
+ *
+ * <p>It may replace the stack of {@link CcSigned} and {@link CcAes}:
+ * the encoded bytes are the id of the key, a random 96 bits nonce,
+ * and the cipher text with the 128 bits authentication tag, which also
+ * covers the id of the key. There is no padding. For example:
+ *
+ * <pre> new CcGcm(new CcSalted(new CcCompact()), key)</pre>
+ *
+ * <p>Keys may be rotated: identities are encoded with the current key,
+ * while any key in the map, from 0 to 255 by id, may decode them:
+ *
+ * <pre> new CcGcm(codec, 2, keys)</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ * @since 2.0
+ */
+@EqualsAndHashCode
+public final class CcGcm implements Codec {
+    /**
+     * Secure random instance.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Length of the nonce.
+     */
+    private static final int NONCE = 12;
+
+    /**
+     * Length of the authentication tag.
+     */
+    private static final int TAG = 16;
+
+    /**
+     * Ciphers of threads.
+     */
+    private static final ThreadLocal<Cipher> CIPHERS = new ThreadLocal<>();
+
+    /**
+     * Original codec.
+     */
+    private final Codec origin;
+
+    /**
+     * Random.
+     */
+    private final SecureRandom random;
+
+    /**
+     * Id of the current key.
+     */
+    private final int current;
+
+    /**
+     * Keys by their ids.
+     */
+    private final Key[] keys;
+
+    /**
+     * Ctor.
+     * @param codec Original codec
+     * @param key The encryption key, 16, 24 or 32 bytes
+     */
+    public CcGcm(final Codec codec, final byte[] key) {
+        this(
+            codec, 0,
+            Collections.singletonMap(0, new SecretKeySpec(key.clone(), "AES"))
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param codec Original codec
+     * @param id Id of the key to encode with
+     * @param keys Keys to decode with, by their ids
+     */
+    public CcGcm(final Codec codec, final int id,
+        final Map<Integer, Key> keys) {
+        this(codec, CcGcm.RANDOM, id, keys);
+    }
+
+    /**
+     * Ctor.
+     * @param codec Original codec
+     * @param random Random generator
+     * @param id Id of the key to encode with
+     * @param keys Keys to decode with, by their ids
+     */
+    public CcGcm(final Codec codec, final SecureRandom random, final int id,
+        final Map<Integer, Key> keys) {
+        this.origin = codec;
+        this.random = random;
+        this.current = id;
+        // @checkstyle MagicNumber (1 line)
+        this.keys = new Key[256];
+        for (final Map.Entry<Integer, Key> ent : keys.entrySet()) {
+            if (ent.getKey() < 0 || ent.getKey() >= this.keys.length) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "the id of the key must be from 0 to %d: %d",
+                        this.keys.length - 1, ent.getKey()
+                    )
+                );
+            }
+            this.keys[ent.getKey()] = ent.getValue();
+        }
+        if (id < 0 || id >= this.keys.length || this.keys[id] == null) {
+            throw new IllegalArgumentException(
+                String.format("there is no key with id %d", id)
+            );
+        }
+    }
+
+    @Override
+    public byte[] encode(final Identity identity) throws IOException {
+        final byte[] plain = this.origin.encode(identity);
+        final byte[] res = new byte[
+            1 + CcGcm.NONCE + plain.length + CcGcm.TAG
+        ];
+        res[0] = (byte) this.current;
+        final byte[] nonce = new byte[CcGcm.NONCE];
+        this.random.nextBytes(nonce);
+        System.arraycopy(nonce, 0, res, 1, nonce.length);
+        try {
+            final Cipher cipher = this.cipher(
+                Cipher.ENCRYPT_MODE, this.keys[this.current], res
+            );
+            cipher.updateAAD(res, 0, 1);
+            cipher.doFinal(plain, 0, plain.length, res, 1 + CcGcm.NONCE);
+        } catch (final GeneralSecurityException ex) {
+            throw new IOException(ex);
+        }
+        return res;
+    }
+
+    @Override
+    public Identity decode(final byte[] bytes) throws IOException {
+        if (bytes.length < 1 + CcGcm.NONCE + CcGcm.TAG) {
+            throw new DecodingException("Invalid encrypted message format");
+        }
+        // @checkstyle MagicNumber (1 line)
+        final Key key = this.keys[bytes[0] & 0xff];
+        if (key == null) {
+            throw new DecodingException(
+                String.format("Unknown key id %d", bytes[0] & 0xff)
+            );
+        }
+        final byte[] plain;
+        try {
+            final Cipher cipher = this.cipher(Cipher.DECRYPT_MODE, key, bytes);
+            cipher.updateAAD(bytes, 0, 1);
+            plain = cipher.doFinal(
+                bytes, 1 + CcGcm.NONCE, bytes.length - 1 - CcGcm.NONCE
+            );
+        } catch (final BadPaddingException | IllegalBlockSizeException ex) {
+            throw new DecodingException(ex);
+        } catch (final GeneralSecurityException ex) {
+            throw new IOException(ex);
+        }
+        return this.origin.decode(plain);
+    }
+
+    /**
+     * Initialize the cipher of the current thread.
+     * @param mode Either Cipher.ENCRYPT_MODE or Cipher.DECRYPT_MODE
+     * @param key The key
+     * @param bytes Encoded bytes, with the nonce after the id of the key
+     * @return The cipher
+     * @throws GeneralSecurityException If fails
+     */
+    private Cipher cipher(final int mode, final Key key, final byte[] bytes)
+        throws GeneralSecurityException {
+        Cipher cipher = CcGcm.CIPHERS.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            CcGcm.CIPHERS.set(cipher);
+        }
+        cipher.init(
+            mode, key,
+            // @checkstyle MagicNumber (1 line)
+            new GCMParameterSpec(CcGcm.TAG * 8, bytes, 1, CcGcm.NONCE),
+            this.random
+        );
+        return cipher;
+    }
+}
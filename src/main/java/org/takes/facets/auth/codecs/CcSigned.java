@@ -26,13 +26,16 @@ package org.takes.facets.auth.codecs;
 import java.io.IOException;
 import java.security.InvalidKeyException;
 import java.security.Key;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.Arrays;
 import javax.crypto.Mac;
 import org.takes.facets.auth.Identity;
 
 /**
  * MAC codec which sign identity with provided algorithm and key.
+ *
+ * <p>Every thread keeps its own initialized {@link Mac}, and signatures
+ * are compared in constant time.
  * @since 1.11.1
  */
 public final class CcSigned implements Codec {
@@ -51,6 +54,11 @@ public final class CcSigned implements Codec {
      */
     private final Key key;
 
+    /**
+     * Initialized MACs of threads.
+     */
+    private final ThreadLocal<Mac> macs;
+
     /**
      * Ctor.
      * @param origin Origin codec
@@ -65,6 +73,7 @@ public final class CcSigned implements Codec {
         this.cdc = origin;
         this.alg = algorithm;
         this.key = secret;
+        this.macs = new ThreadLocal<>();
     }
 
     @Override
@@ -100,24 +109,28 @@ public final class CcSigned implements Codec {
             signature.length
         );
         final byte[] actual = mac.doFinal(encoded);
-        if (!Arrays.equals(actual, signature)) {
+        if (!MessageDigest.isEqual(actual, signature)) {
             throw new IOException("Bad signature");
         }
         return this.cdc.decode(encoded);
     }
 
     /**
-     * Obtain MAC instance.
+     * Obtain MAC instance of the current thread.
      * @return Initialized MAC
      * @throws IOException If algorithm missed or invalid key
      */
     private Mac mac() throws IOException {
-        try {
-            final Mac mac = Mac.getInstance(this.alg);
-            mac.init(this.key);
-            return mac;
-        } catch (final NoSuchAlgorithmException | InvalidKeyException err) {
-            throw new IOException(err);
+        Mac mac = this.macs.get();
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(this.alg);
+                mac.init(this.key);
+            } catch (final NoSuchAlgorithmException | InvalidKeyException err) {
+                throw new IOException(err);
+            }
+            this.macs.set(mac);
         }
+        return mac;
     }
 }
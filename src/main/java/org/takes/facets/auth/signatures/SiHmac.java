@@ -27,7 +27,6 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.util.Formatter;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import lombok.EqualsAndHashCode;
@@ -36,11 +35,15 @@ import lombok.EqualsAndHashCode;
  * HMAC codec which supports 256, 384 and 512 bit hash.
  *
  * <p>
+ * Every thread keeps its own initialized {@link Mac} for the key, and
+ * the signature is encoded in hex through a table.
+ *
+ * <p>
  * The class is immutable and thread-safe.
  *
  * @since 1.4
  */
-@EqualsAndHashCode
+@EqualsAndHashCode(exclude = "macs")
 public final class SiHmac implements Signature {
     /**
      * The HMAC 256 bit variant.
@@ -57,6 +60,14 @@ public final class SiHmac implements Signature {
      */
     public static final int HMAC512 = 512;
 
+    /**
+     * Hex digits.
+     */
+    private static final byte[] HEX = {
+        '0', '1', '2', '3', '4', '5', '6', '7',
+        '8', '9', 'a', 'b', 'c', 'd', 'e', 'f',
+    };
+
     /**
      * The encryption key.
      */
@@ -67,6 +78,11 @@ public final class SiHmac implements Signature {
      */
     private final int bits;
 
+    /**
+     * Initialized MACs of threads.
+     */
+    private final ThreadLocal<Mac> macs;
+
     /**
      * Ctor.
      *
@@ -100,6 +116,7 @@ public final class SiHmac implements Signature {
     public SiHmac(final byte[] key, final int bits) {
         this.key = key.clone();
         this.bits = SiHmac.bitLength(bits);
+        this.macs = new ThreadLocal<>();
     }
 
     @Override
@@ -143,16 +160,19 @@ public final class SiHmac implements Signature {
      *  for all unexpected exceptions
      */
     private byte[] encrypt(final byte[] bytes) throws IOException {
-        try (Formatter formatter = new Formatter()) {
-            for (final byte byt : this.create().doFinal(bytes)) {
-                formatter.format("%02x", byt);
-            }
-            return formatter.toString().getBytes(Charset.defaultCharset());
+        final byte[] raw = this.create().doFinal(bytes);
+        final byte[] hex = new byte[raw.length << 1];
+        for (int idx = 0; idx < raw.length; ++idx) {
+            // @checkstyle MagicNumber (2 lines)
+            hex[idx << 1] = SiHmac.HEX[raw[idx] >> 4 & 0x0f];
+            hex[(idx << 1) + 1] = SiHmac.HEX[raw[idx] & 0x0f];
         }
+        return hex;
     }
 
     /**
-     * Create new mac based on a valid bit length from {@link Mac} class.
+     * Get the mac of the current thread, creating it if necessary,
+     * based on a valid bit length from {@link Mac} class.
      *
      * @return The mac
      * @throws IOException
@@ -160,16 +180,17 @@ public final class SiHmac implements Signature {
      */
     private Mac create()
         throws IOException {
-        final String algo = String.format("HmacSHA%s", this.bits);
-        try {
-            final SecretKeySpec secret = new SecretKeySpec(
-                this.key, algo
-            );
-            final Mac mac = Mac.getInstance(algo);
-            mac.init(secret);
-            return mac;
-        } catch (final NoSuchAlgorithmException | InvalidKeyException ex) {
-            throw new IOException(ex);
+        Mac mac = this.macs.get();
+        if (mac == null) {
+            final String algo = String.format("HmacSHA%s", this.bits);
+            try {
+                mac = Mac.getInstance(algo);
+                mac.init(new SecretKeySpec(this.key, algo));
+            } catch (final NoSuchAlgorithmException | InvalidKeyException ex) {
+                throw new IOException(ex);
+            }
+            this.macs.set(mac);
         }
+        return mac;
     }
 }
@@ -84,6 +84,16 @@ import org.takes.tk.TkText;
 @EqualsAndHashCode
 public final class FkRegex implements Fork {
 
+    /**
+     * Characters, which have a special meaning in a pattern.
+     */
+    private static final String META = "\\[](){}.*+?^$|";
+
+    /**
+     * Quantifiers, which make the previous character optional.
+     */
+    private static final String OPTIONAL = "?*{";
+
     /**
      * Pattern.
      */
@@ -213,7 +223,19 @@ public final class FkRegex implements Fork {
 
     @Override
     public Opt<Response> route(final Request req) throws Exception {
-        String path = new RqHref.Base(req).href().path();
+        return this.route(req, new RqHref.Base(req).href().path());
+    }
+
+    /**
+     * Route the request, which path is already known.
+     * @param req Request
+     * @param href Path of the request
+     * @return Response, if the path matches
+     * @throws Exception If fails
+     */
+    Opt<Response> route(final Request req, final String href)
+        throws Exception {
+        String path = href;
         if (
             this.removeslash
                 && path.length() > 1
@@ -235,6 +257,49 @@ public final class FkRegex implements Fork {
         return resp;
     }
 
+    /**
+     * Literal prefix, which every path matching the pattern starts with.
+     *
+     * <p>The prefix is lower-cased and may be shorter than the
+     * real one, or even empty, but never longer. It is used by
+     * {@link FkTrie} to skip patterns which can't match.
+     * @return Prefix
+     */
+    String prefix() {
+        final String regex = this.pattern.pattern();
+        final StringBuilder prefix = new StringBuilder(regex.length());
+        if (regex.indexOf('|') < 0
+            && (this.pattern.flags() & (Pattern.COMMENTS | Pattern.LITERAL))
+            == 0) {
+            int idx = 0;
+            if (regex.startsWith("^")) {
+                idx = 1;
+            }
+            while (idx < regex.length()) {
+                char chr = regex.charAt(idx);
+                int next = idx + 1;
+                if (chr == '\\' && next < regex.length()
+                    && !Character.isLetterOrDigit(regex.charAt(next))) {
+                    chr = regex.charAt(next);
+                    next += 1;
+                } else if (FkRegex.META.indexOf(chr) >= 0) {
+                    break;
+                }
+                // @checkstyle MagicNumber (1 line)
+                if (chr > 0x7f || next < regex.length()
+                    && FkRegex.OPTIONAL.indexOf(regex.charAt(next)) >= 0) {
+                    break;
+                }
+                prefix.append(Character.toLowerCase(chr));
+                if (next < regex.length() && regex.charAt(next) == '+') {
+                    break;
+                }
+                idx = next;
+            }
+        }
+        return prefix.toString();
+    }
+
     /**
      * Request with a matcher inside.
      *
@@ -0,0 +1,264 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.fork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.cactoos.Scalar;
+import org.cactoos.scalar.Sticky;
+import org.cactoos.scalar.Unchecked;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.misc.Opt;
+import org.takes.rq.RqHref;
+
+/**
+ * A Fork chain, compiled into a prefix tree.
+ *
+ * <p>It routes exactly like {@link FkChain}: to each given Fork in order,
+ * until one of them returns a response. However, the patterns of
+ * {@link FkRegex} forks are analysed up front and grouped by their
+ * literal prefixes into a tree. The path of the request is parsed
+ * only once and only those patterns, which prefixes the path starts
+ * with, are tried. Use it instead of {@link FkChain} when there are
+ * many routes:
+ *
+ * <pre> Take take = new TkFork(
+ *   new FkTrie(
+ *     new FkRegex("/home", new TkHome()),
+ *     new FkRegex("/account/[0-9]+", new TkAccount()),
+ *     new FkRegex("/account/settings", new TkSettings())
+ *   )
+ * );</pre>
+ *
+ * <p>Forks of other types are asked in their turn, just like in
+ * {@link FkChain}.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+public final class FkTrie implements Fork {
+
+    /**
+     * Routes, compiled from the forks.
+     */
+    private final Unchecked<List<FkTrie.Route>> routes;
+
+    /**
+     * Ctor.
+     * @param forks Forks
+     */
+    public FkTrie(final Fork... forks) {
+        this(Arrays.asList(forks));
+    }
+
+    /**
+     * Ctor.
+     * @param forks Forks
+     */
+    public FkTrie(final Collection<Fork> forks) {
+        this.routes = new Unchecked<>(
+            new Sticky<>(() -> FkTrie.compile(forks))
+        );
+    }
+
+    @Override
+    public Opt<Response> route(final Request request) throws Exception {
+        final Scalar<String> path = new Sticky<>(
+            () -> new RqHref.Base(request).href().path()
+        );
+        Opt<Response> response = new Opt.Empty<>();
+        for (final FkTrie.Route route : this.routes.value()) {
+            final Opt<Response> current = route.route(request, path);
+            if (current.has()) {
+                response = current;
+                break;
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Compile forks into routes, grouping consecutive regular
+     * expressions into trees.
+     * @param forks Forks
+     * @return Routes
+     */
+    private static List<FkTrie.Route> compile(final Iterable<Fork> forks) {
+        final List<FkTrie.Route> routes = new ArrayList<>(0);
+        List<FkRegex> regexes = new ArrayList<>(0);
+        for (final Fork fork : forks) {
+            if (fork instanceof FkRegex) {
+                regexes.add((FkRegex) fork);
+                continue;
+            }
+            if (!regexes.isEmpty()) {
+                routes.add(new FkTrie.Tree(regexes));
+                regexes = new ArrayList<>(0);
+            }
+            routes.add((req, path) -> fork.route(req));
+        }
+        if (!regexes.isEmpty()) {
+            routes.add(new FkTrie.Tree(regexes));
+        }
+        return Collections.unmodifiableList(routes);
+    }
+
+    /**
+     * Compiled route.
+     * @since 2.0
+     */
+    private interface Route {
+        /**
+         * Process this request or ignore it.
+         * @param req Request
+         * @param path Path of the request, parsed on demand
+         * @return Response if it was processed
+         * @throws Exception If fails
+         */
+        Opt<Response> route(Request req, Scalar<String> path)
+            throws Exception;
+    }
+
+    /**
+     * Prefix tree of regular expression forks.
+     *
+     * <p>The class is immutable and thread-safe.
+     *
+     * @since 2.0
+     */
+    private static final class Tree implements FkTrie.Route {
+
+        /**
+         * Forks, in their original order.
+         */
+        private final List<FkRegex> forks;
+
+        /**
+         * Root node.
+         */
+        private final FkTrie.Node root;
+
+        /**
+         * Ctor.
+         * @param regexes Forks, in their original order
+         */
+        Tree(final List<FkRegex> regexes) {
+            this.forks = regexes;
+            this.root = new FkTrie.Node();
+            for (int idx = 0; idx < regexes.size(); ++idx) {
+                this.root.add(regexes.get(idx).prefix(), idx);
+            }
+        }
+
+        @Override
+        public Opt<Response> route(final Request req,
+            final Scalar<String> path) throws Exception {
+            final String href = path.value();
+            Opt<Response> response = new Opt.Empty<>();
+            for (final int idx : this.root.candidates(href)) {
+                final Opt<Response> current =
+                    this.forks.get(idx).route(req, href);
+                if (current.has()) {
+                    response = current;
+                    break;
+                }
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Node of the prefix tree.
+     *
+     * <p>The class is mutable while the tree is being built and
+     * effectively immutable after that.
+     *
+     * @since 2.0
+     */
+    private static final class Node {
+
+        /**
+         * Children, by next character of the prefix.
+         */
+        private final Map<Character, FkTrie.Node> kids;
+
+        /**
+         * Positions of the forks which prefix ends here.
+         */
+        private final List<Integer> ends;
+
+        /**
+         * Ctor.
+         */
+        Node() {
+            this.kids = new HashMap<>(0);
+            this.ends = new ArrayList<>(0);
+        }
+
+        /**
+         * Add a fork.
+         * @param prefix Its lower-cased prefix
+         * @param pos Its position
+         */
+        public void add(final String prefix, final int pos) {
+            FkTrie.Node node = this;
+            for (int idx = 0; idx < prefix.length(); ++idx) {
+                node = node.kids.computeIfAbsent(
+                    prefix.charAt(idx), chr -> new FkTrie.Node()
+                );
+            }
+            node.ends.add(pos);
+        }
+
+        /**
+         * Positions of the forks, which prefixes the path starts with.
+         * @param path Path
+         * @return Positions, sorted
+         */
+        public int[] candidates(final String path) {
+            final List<Integer> found = new ArrayList<>(this.ends);
+            FkTrie.Node node = this;
+            for (int idx = 0; idx < path.length(); ++idx) {
+                node = node.kids.get(Character.toLowerCase(path.charAt(idx)));
+                if (node == null) {
+                    break;
+                }
+                found.addAll(node.ends);
+            }
+            final int[] sorted = new int[found.size()];
+            for (int idx = 0; idx < sorted.length; ++idx) {
+                sorted[idx] = found.get(idx);
+            }
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -54,12 +54,24 @@ import org.takes.misc.Opt;
  * one that reacts will get control. Each "fork" is an implementation
  * of {@link org.takes.facets.fork.Fork}.
  *
+ * <p>With hundreds of {@link FkRegex} routes, trying them one by one
+ * becomes expensive. Put them into {@link FkTrie}, which tries only
+ * those patterns that can match the path of the request:
+ *
+ * <pre> Take take = new TkFork(
+ *   new FkTrie(
+ *     new FkRegex("/home", new TkHome()),
+ *     new FkRegex("/account", new TkAccount())
+ *   )
+ * );</pre>
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.4
  * @see org.takes.facets.fork.FkMethods
  * @see org.takes.facets.fork.FkRegex
  * @see org.takes.facets.fork.FkParams
+ * @see org.takes.facets.fork.FkTrie
  */
 @ToString(of = "forks")
 @EqualsAndHashCode
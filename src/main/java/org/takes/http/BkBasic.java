@@ -23,29 +23,70 @@
  */
 package org.takes.http;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.EqualsAndHashCode;
 import org.cactoos.bytes.BytesOf;
-import org.cactoos.bytes.UncheckedBytes;
 import org.cactoos.io.InputStreamOf;
 import org.takes.HttpException;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
+import org.takes.rq.RqChunk;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqLengthAware;
 import org.takes.rq.RqLive;
+import org.takes.rq.RqMethod;
 import org.takes.rq.RqWithHeaders;
+import org.takes.rs.ChannelInputStream;
+import org.takes.rs.ResponseOf;
 import org.takes.rs.RsPrint;
 import org.takes.rs.RsText;
+import org.takes.rs.RsWithHeader;
 import org.takes.rs.RsWithStatus;
 
 /**
  * Basic back-end.
  *
+ * <p>Connections are persistent, as HTTP/1.1 requires: after a response
+ * is printed, the back waits for the next request on the same socket,
+ * up to the idle timeout, and serves pipelined requests one after
+ * another, in order. The body of each request is limited by its
+ * {@code Content-Length} or chunked encoding, and is drained before
+ * the next head is parsed. The connection is closed when the client
+ * asks for it with {@code Connection: close}, speaks HTTP/1.0,
+ * the response has no delimited body, or the maximum number of requests
+ * per connection is reached. If the head of the request can't be parsed,
+ * for example if it's too long, the failure is printed and the connection
+ * is closed.
+ *
+ * <p>The body of the response is always closed after it is printed.
+ * It's not printed at all in response to {@code HEAD} or with 1xx, 204
+ * or 304 status, which have no body in HTTP.
+ * Closing the body of the request, even when the take returns it as
+ * the body of the response, doesn't close the connection.
+ *
+ * <p>With zero idle timeout the back returns as soon as no more bytes are
+ * waiting in the socket, leaving it open, which is what an event-driven
+ * front, like {@link FtNio}, needs in order to wait for the next request
+ * without holding a thread. Sockets which must not be reused are closed.
+ * The maximum number of requests is counted within one call of
+ * {@link #accept(Socket)}, so under such a front it limits the requests
+ * served in one go, while the connection as a whole may serve more.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -76,75 +117,237 @@ public final class BkBasic implements Back {
      */
     public static final String REMOTEPORT = "X-Takes-RemotePort";
 
+    /**
+     * Default idle timeout of a connection, in milliseconds.
+     */
+    private static final int IDLE = 5000;
+
+    /**
+     * Default maximum number of requests per connection.
+     */
+    private static final int MAX = 100;
+
     /**
      * Take.
      */
     private final Take take;
 
+    /**
+     * How long to wait for the next request, in milliseconds.
+     */
+    private final int idle;
+
+    /**
+     * Maximum number of requests per connection.
+     */
+    private final int max;
+
     /**
      * Ctor.
      * @param tks Take
      */
     public BkBasic(final Take tks) {
+        this(tks, BkBasic.IDLE, BkBasic.MAX);
+    }
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param msec How long to wait for the next request on the same
+     *  connection, in milliseconds, zero to not wait at all
+     * @param requests Maximum number of requests per connection, or per
+     *  call of {@link #accept(Socket)} if the socket is left open
+     */
+    public BkBasic(final Take tks, final int msec, final int requests) {
         this.take = tks;
+        this.idle = msec;
+        this.max = requests;
     }
 
     @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     @Override
     public void accept(final Socket socket) throws IOException {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buffer = new byte[8192];
+        boolean done = true;
         try (
-            InputStream input = socket.getInputStream();
+            InputStream input = new BufferedInputStream(
+                socket.getInputStream(), buffer.length
+            );
             BufferedOutputStream output = new BufferedOutputStream(
-                socket.getOutputStream()
+                socket.getOutputStream(), buffer.length
             )
         ) {
+            final WritableByteChannel target = BkBasic.channel(socket, output);
+            final InputStream shielded = new FilterInputStream(input) {
+                @Override
+                public void close() {
+                    // the connection stays open for the next request
+                }
+            };
+            int served = 0;
             while (true) {
-                this.print(
-                    BkBasic.addSocketHeaders(
-                        new RqLive(input),
-                        socket
-                    ),
-                    output
-                );
-                if (input.available() <= 0) {
+                ++served;
+                final RqHeaders.Indexed req;
+                try {
+                    req = BkBasic.addSocketHeaders(
+                        new RqLive(shielded), socket
+                    );
+                } catch (final HttpException ex) {
+                    BkBasic.reject(ex, output);
                     break;
                 }
+                final boolean persistent = served < this.max
+                    && BkBasic.persistent(req);
+                final InputStream body = BkBasic.body(req, persistent);
+                if (!this.print(
+                    new RqHeaders.Indexed(req, body), output, target,
+                    persistent
+                )) {
+                    break;
+                }
+                BkBasic.drain(body, buffer);
+                if (this.idle == 0 && input.available() <= 0) {
+                    done = false;
+                    break;
+                }
+                if (!this.await(socket, input)) {
+                    break;
+                }
+            }
+        } finally {
+            if (done) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Wait for the next request on the connection.
+     * @param socket Socket
+     * @param input Input stream of the socket, with mark supported
+     * @return TRUE if the next request is coming
+     * @throws IOException If fails
+     */
+    private boolean await(final Socket socket, final InputStream input)
+        throws IOException {
+        boolean more = input.available() > 0;
+        if (!more && this.idle > 0) {
+            final int timeout = socket.getSoTimeout();
+            socket.setSoTimeout(this.idle);
+            input.mark(1);
+            try {
+                more = input.read() >= 0;
+                input.reset();
+            } catch (final SocketTimeoutException ex) {
+                more = false;
+            } finally {
+                socket.setSoTimeout(timeout);
             }
         }
+        return more;
     }
 
     /**
      * Print response to output stream, safely.
+     *
+     * <p>The head is written first and then the body is copied, without
+     * loading it into memory, see {@link RsPrint#print(OutputStream)}.
+     * If the take fails before the head is printed, an error response is
+     * printed instead.
      * @param req Request
      * @param output Output
+     * @param target Channel of the output
+     * @param persistent Whether the connection may be kept
+     * @return TRUE if the connection may be kept after this response
      * @throws IOException If fails
      */
     @SuppressWarnings("PMD.AvoidCatchingThrowable")
-    private void print(final Request req, final OutputStream output)
+    private boolean print(final Request req, final OutputStream output,
+        final WritableByteChannel target, final boolean persistent)
         throws IOException {
+        List<String> head;
+        InputStream body;
         try {
-            output.write(
-                new RsPrint(this.take.act(req)).asBytes()
-            );
+            final Response res = this.take.act(req);
+            head = BkBasic.head(res);
+            body = res.body();
         } catch (final HttpException ex) {
-            output.write(
-                new UncheckedBytes(
-                    new RsPrint(BkBasic.failure(ex, ex.code()))
-                ).asBytes()
-            );
+            final Response res = BkBasic.failure(ex, ex.code());
+            head = BkBasic.head(res);
+            body = res.body();
             // @checkstyle IllegalCatchCheck (10 lines)
         } catch (final Throwable ex) {
-            output.write(
-                new UncheckedBytes(
-                    new RsPrint(
-                        BkBasic.failure(
-                            ex,
-                            HttpURLConnection.HTTP_INTERNAL_ERROR
-                        )
-                    )
-                ).asBytes()
+            final Response res = BkBasic.failure(
+                ex, HttpURLConnection.HTTP_INTERNAL_ERROR
             );
+            head = BkBasic.head(res);
+            body = res.body();
+        }
+        final boolean empty = BkBasic.bodiless(head)
+            || BkBasic.headless(req);
+        final boolean keep = persistent
+            && (empty || BkBasic.delimited(head))
+            && !BkBasic.closing(head);
+        if (!keep && BkBasic.values(head, "connection").isEmpty()) {
+            head.add("Connection: close");
+        }
+        final List<String> lines = head;
+        final InputStream stream = body;
+        final RsPrint print = new RsPrint(
+            new ResponseOf(() -> lines, () -> stream)
+        );
+        print.printHead(output);
+        if (empty) {
+            stream.close();
+        } else if (stream instanceof ChannelInputStream) {
+            output.flush();
+            try {
+                ((ChannelInputStream) stream).transfer(target);
+            } finally {
+                stream.close();
+            }
+        } else {
+            print.printBody(output);
         }
+        output.flush();
+        return keep;
+    }
+
+    /**
+     * Print the failure to parse the head of the request, after which
+     * the connection can't be used anymore.
+     * @param err Failure
+     * @param output Output
+     * @throws IOException If fails
+     */
+    private static void reject(final HttpException err,
+        final OutputStream output) throws IOException {
+        new RsPrint(
+            new RsWithHeader(
+                BkBasic.failure(err, err.code()), "Connection: close"
+            )
+        ).print(output);
+        output.flush();
+    }
+
+    /**
+     * Channel to write to the socket.
+     * @param socket Socket
+     * @param output Output stream of the socket
+     * @return The channel of the socket or the channel of the stream,
+     *  if the socket doesn't have a blocking channel
+     */
+    private static WritableByteChannel channel(final Socket socket,
+        final OutputStream output) {
+        final SocketChannel chan = socket.getChannel();
+        final WritableByteChannel target;
+        if (chan == null || !chan.isBlocking()) {
+            target = Channels.newChannel(output);
+        } else {
+            target = chan;
+        }
+        return target;
     }
 
     /**
@@ -164,29 +367,190 @@ public final class BkBasic implements Back {
         );
     }
 
+    /**
+     * Lines of the head of the response.
+     * @param res Response
+     * @return Modifiable list of lines
+     * @throws IOException If fails
+     */
+    private static List<String> head(final Response res) throws IOException {
+        final List<String> lines = new ArrayList<>(0);
+        for (final String line : res.head()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Whether the client wants to keep the connection after this request.
+     * @param req Request
+     * @return TRUE if it's an HTTP/1.1 request without "Connection: close"
+     * @throws IOException If fails
+     */
+    private static boolean persistent(final RqHeaders.Indexed req)
+        throws IOException {
+        return req.head().iterator().next().trim().endsWith("HTTP/1.1")
+            && !BkBasic.contains(req.header("Connection"), "close");
+    }
+
+    /**
+     * Body of the request, limited by its length or encoding.
+     *
+     * <p>A request of a persistent connection without both
+     * {@code Content-Length} and chunked encoding has no body at all,
+     * while otherwise the body lasts till the end of the stream.
+     * @param req Request
+     * @param persistent Whether the connection is persistent
+     * @return Body
+     * @throws IOException If fails
+     */
+    private static InputStream body(final RqHeaders.Indexed req,
+        final boolean persistent) throws IOException {
+        final InputStream body;
+        if (BkBasic.contains(req.header("Transfer-Encoding"), "chunked")) {
+            body = new RqChunk(req).body();
+        } else if (!req.header("Content-Length").isEmpty()) {
+            body = new RqLengthAware(req).body();
+        } else if (persistent) {
+            body = new ByteArrayInputStream(new byte[0]);
+        } else {
+            body = req.body();
+        }
+        return body;
+    }
+
+    /**
+     * Read what is left of the body of the request.
+     * @param body Body
+     * @param buffer Buffer to read into
+     * @throws IOException If fails
+     */
+    private static void drain(final InputStream body, final byte[] buffer)
+        throws IOException {
+        int len = 0;
+        while (len >= 0) {
+            len = body.read(buffer);
+        }
+    }
+
+    /**
+     * Whether the request is a HEAD, which gets no body in response.
+     * @param req Request
+     * @return TRUE if so
+     * @throws IOException If fails
+     */
+    private static boolean headless(final Request req) throws IOException {
+        return RqMethod.HEAD.equals(
+            req.head().iterator().next().split(" ", 2)[0]
+        );
+    }
+
+    /**
+     * Whether the status of the response doesn't allow a body.
+     * @param head Head of the response
+     * @return TRUE if it's 1xx, 204 or 304
+     */
+    private static boolean bodiless(final List<String> head) {
+        final String[] status = head.get(0).split(" ", 3);
+        boolean bodiless = false;
+        if (status.length > 1 && status[1].matches("\\d{3}")) {
+            final int code = Integer.parseInt(status[1]);
+            bodiless = code < HttpURLConnection.HTTP_OK
+                || code == HttpURLConnection.HTTP_NO_CONTENT
+                || code == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+        return bodiless;
+    }
+
+    /**
+     * Whether the body of the response has a known end.
+     * @param head Head of the response
+     * @return TRUE if there is a length or chunked encoding
+     */
+    private static boolean delimited(final List<String> head) {
+        return !BkBasic.values(head, "content-length").isEmpty()
+            || BkBasic.contains(
+                BkBasic.values(head, "transfer-encoding"), "chunked"
+            );
+    }
+
+    /**
+     * Whether the response closes the connection.
+     * @param head Head of the response
+     * @return TRUE if there is "Connection: close"
+     */
+    private static boolean closing(final List<String> head) {
+        return BkBasic.contains(BkBasic.values(head, "connection"), "close");
+    }
+
+    /**
+     * Values of the header of the response.
+     * @param head Head of the response
+     * @param name Name of the header, in lower case
+     * @return Values found
+     */
+    private static List<String> values(final List<String> head,
+        final String name) {
+        final List<String> found = new ArrayList<>(1);
+        final String prefix = String.format("%s:", name);
+        for (final String line : head.subList(1, head.size())) {
+            if (line.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                found.add(line.substring(prefix.length()).trim());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Whether the comma-separated values contain the token.
+     * @param values Values of the header
+     * @param token Token to find, case insensitive
+     * @return TRUE if found
+     */
+    private static boolean contains(final List<String> values,
+        final String token) {
+        boolean found = false;
+        for (final String value : values) {
+            for (final String item : value.split(",")) {
+                if (token.equalsIgnoreCase(item.trim())) {
+                    found = true;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
     /**
      * Adds custom headers with information about socket.
+     *
+     * <p>The headers of the request are parsed only once, no matter how
+     * many times the take looks at them, see {@link RqHeaders.Indexed}.
      * @param req Request
      * @param socket Socket
      * @return Request with custom headers
      */
     @SuppressWarnings("PMD.AvoidDuplicateLiterals")
-    private static Request addSocketHeaders(final Request req,
+    private static RqHeaders.Indexed addSocketHeaders(final Request req,
         final Socket socket) {
-        return new RqWithHeaders(
-            req,
-            String.format(
-                "%s: %s",
-                BkBasic.LOCALADDR,
-                socket.getLocalAddress().getHostAddress()
-            ),
-            String.format("%s: %d", BkBasic.LOCALPORT, socket.getLocalPort()),
-            String.format(
-                "%s: %s",
-                BkBasic.REMOTEADDR,
-                socket.getInetAddress().getHostAddress()
-            ),
-            String.format("%s: %d", BkBasic.REMOTEPORT, socket.getPort())
+        return new RqHeaders.Indexed(
+            new RqWithHeaders(
+                req,
+                String.format(
+                    "%s: %s",
+                    BkBasic.LOCALADDR,
+                    socket.getLocalAddress().getHostAddress()
+                ),
+                String.format(
+                    "%s: %d", BkBasic.LOCALPORT, socket.getLocalPort()
+                ),
+                String.format(
+                    "%s: %s",
+                    BkBasic.REMOTEADDR,
+                    socket.getInetAddress().getHostAddress()
+                ),
+                String.format("%s: %d", BkBasic.REMOTEPORT, socket.getPort())
+            )
         );
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Back-end that runs every socket in its own virtual thread.
+ *
+ * <p>Virtual threads are available in JDK 21 and later. On older
+ * runtimes this back falls back to {@link BkParallel} with a fixed
+ * pool of platform threads. Use it for I/O-bound takes, which spend
+ * most of their time waiting for other servers or databases.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@EqualsAndHashCode(callSuper = true)
+public final class BkVirtual extends BkWrap {
+
+    /**
+     * Ctor.
+     * @param back Original back
+     */
+    public BkVirtual(final Back back) {
+        this(back, Runtime.getRuntime().availableProcessors() << 2);
+    }
+
+    /**
+     * Ctor.
+     * @param back Original back
+     * @param threads Threads total, if virtual threads are not supported
+     */
+    public BkVirtual(final Back back, final int threads) {
+        super(BkVirtual.parallel(back, threads));
+    }
+
+    /**
+     * Make a parallel back, with virtual threads if possible.
+     * @param back Original back
+     * @param threads Threads total, if virtual threads are not supported
+     * @return Parallel back
+     */
+    private static Back parallel(final Back back, final int threads) {
+        Back parallel;
+        try {
+            parallel = new BkParallel(
+                back,
+                (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null)
+            );
+        } catch (final ReflectiveOperationException ex) {
+            parallel = new BkParallel(back, threads);
+        }
+        return parallel;
+    }
+}
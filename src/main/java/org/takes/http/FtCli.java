@@ -46,6 +46,9 @@ import org.takes.rq.RqWithHeader;
  *   "--lifetime=3000"
  * ).start(Exit.NEVER);</pre>
  *
+ * <p>With {@code --threads=virtual} every request is processed in its
+ * own virtual thread, see {@link BkVirtual}.</p>
+ *
  * <p>The code above will start a server and will never stop it. It will
  * work in the foreground. The server will be started at a random TCP
  * port and its number will be saved to {@code /tmp/port.txt} file.</p>
@@ -110,13 +113,13 @@ public final class FtCli implements Front {
         );
         timeable.setDaemon(true);
         timeable.start();
-        final Front front = new FtBasic(
-            new BkParallel(
-                timeable,
-                this.options.threads()
-            ),
-            this.options.socket()
-        );
+        final Back back;
+        if (this.options.virtual()) {
+            back = new BkVirtual(timeable, this.options.threads());
+        } else {
+            back = new BkParallel(timeable, this.options.threads());
+        }
+        final Front front = new FtBasic(back, this.options.socket());
         if (this.options.isDaemon()) {
             final Thread thread = new Thread(
                 new Runnable() {
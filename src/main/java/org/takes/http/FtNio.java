@@ -0,0 +1,598 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.EqualsAndHashCode;
+import org.takes.Take;
+import org.takes.rq.RqLive;
+
+/**
+ * Non-blocking front, built on top of a NIO {@link Selector}.
+ *
+ * <p>Unlike {@link FtBasic}, this front doesn't give a thread to a
+ * connection until a complete HTTP request head has arrived. All
+ * connections are accepted and read by a single selector thread,
+ * without blocking. As soon as the head is there, the connection is
+ * switched to blocking mode and handed to the {@link Back} in one of the
+ * worker threads. When the back returns without closing the socket,
+ * the connection goes back to the selector and waits there for the next
+ * request, without occupying any thread. Thus, thousands of mostly idle
+ * keep-alive clients don't need thousands of threads.
+ *
+ * <pre> new FtNio(
+ *   new TkFork(new FkRegex("/", "hello, world!")), 8080
+ * ).start(Exit.NEVER);</pre>
+ *
+ * <p>The back must process the socket synchronously, in the calling
+ * thread, so don't wrap it into {@link BkParallel}: the workers of this
+ * front are already parallel. Give {@link BkBasic} zero idle timeout,
+ * so that it returns as soon as the client has nothing more to send.
+ * Its maximum number of requests per connection then applies to each
+ * wake-up of a parked connection, not to the connection as a whole:
+ * a client that pauses between requests is never cut off by it, while
+ * one that pipelines more than that many requests at once is.
+ *
+ * <p>A connection waiting in the selector is closed, if the complete
+ * head of the next request doesn't arrive within the idle timeout,
+ * five seconds by default, counting from the moment the connection was
+ * accepted or given back by the back. Thus, neither silent clients nor
+ * those sending a byte now and then hold a connection forever. A head
+ * longer than {@link RqLive#LIMIT} is given to the back as it is, which
+ * answers with HTTP 431, see {@link BkBasic}.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle ClassFanOutComplexityCheck (500 lines)
+ */
+@EqualsAndHashCode
+@SuppressWarnings("PMD.ExcessiveImports")
+public final class FtNio implements Front {
+
+    /**
+     * Default idle timeout, in milliseconds.
+     */
+    private static final int IDLE = 5000;
+
+    /**
+     * How often to look for idle connections, in milliseconds.
+     */
+    private static final long SWEEP = 1000L;
+
+    /**
+     * Back.
+     */
+    private final Back back;
+
+    /**
+     * Server socket channel.
+     */
+    private final ServerSocketChannel channel;
+
+    /**
+     * Workers.
+     */
+    private final ExecutorService workers;
+
+    /**
+     * How long to wait for the head of a request, in milliseconds.
+     */
+    private final int idle;
+
+    /**
+     * Ctor.
+     * @param tks Take
+     * @param prt Port
+     * @throws IOException If fails
+     */
+    public FtNio(final Take tks, final int prt) throws IOException {
+        // @checkstyle MagicNumber (1 line)
+        this(new BkSafe(new BkBasic(tks, 0, 100)), FtNio.bound(prt));
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back, which must process sockets synchronously
+     * @param chnl Server socket channel, bound to a port
+     */
+    public FtNio(final Back bck, final ServerSocketChannel chnl) {
+        this(
+            bck,
+            chnl,
+            Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors() << 2
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back, which must process sockets synchronously
+     * @param chnl Server socket channel, bound to a port
+     * @param svc Workers, to run the back in
+     */
+    public FtNio(final Back bck, final ServerSocketChannel chnl,
+        final ExecutorService svc) {
+        this(bck, chnl, svc, FtNio.IDLE);
+    }
+
+    /**
+     * Ctor.
+     * @param bck Back, which must process sockets synchronously
+     * @param chnl Server socket channel, bound to a port
+     * @param svc Workers, to run the back in
+     * @param msec How long to wait for the head of a request on an idle
+     *  connection, in milliseconds
+     * @checkstyle ParameterNumberCheck (3 lines)
+     */
+    public FtNio(final Back bck, final ServerSocketChannel chnl,
+        final ExecutorService svc, final int msec) {
+        this.back = bck;
+        this.channel = chnl;
+        this.workers = svc;
+        this.idle = msec;
+    }
+
+    @Override
+    public void start(final Exit exit) throws IOException {
+        final Queue<FtNio.Connection> parked = new ConcurrentLinkedQueue<>();
+        // @checkstyle MagicNumber (1 line)
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(8192);
+        try (Selector selector = Selector.open()) {
+            this.channel.configureBlocking(false);
+            this.channel.register(selector, SelectionKey.OP_ACCEPT);
+            long sweep = 0L;
+            do {
+                selector.select(FtNio.SWEEP);
+                this.loop(selector, parked, buffer);
+                final long now = System.currentTimeMillis();
+                if (now >= sweep) {
+                    FtNio.expire(selector, now);
+                    sweep = now + FtNio.SWEEP;
+                }
+            } while (!exit.ready());
+            for (final SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+        } finally {
+            this.channel.close();
+            this.workers.shutdown();
+        }
+    }
+
+    /**
+     * Make a loop cycle.
+     * @param selector Selector
+     * @param parked Connections returned by workers
+     * @param buffer Buffer to read into
+     * @throws IOException If fails
+     */
+    private void loop(final Selector selector,
+        final Queue<FtNio.Connection> parked, final ByteBuffer buffer)
+        throws IOException {
+        final Collection<FtNio.Connection> ready = new LinkedList<>();
+        for (FtNio.Connection conn = parked.poll(); conn != null;
+            conn = parked.poll()) {
+            conn.register(selector);
+        }
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                this.accept(selector);
+            } else if (key.isReadable()) {
+                final FtNio.Connection conn =
+                    (FtNio.Connection) key.attachment();
+                if (conn.read(buffer)) {
+                    key.cancel();
+                    ready.add(conn);
+                }
+            }
+        }
+        if (!ready.isEmpty()) {
+            selector.selectNow();
+            for (final FtNio.Connection conn : ready) {
+                this.workers.execute(
+                    () -> this.dispatch(conn, selector, parked)
+                );
+            }
+        }
+    }
+
+    /**
+     * Accept a new connection, if there is one.
+     * @param selector Selector
+     * @throws IOException If fails
+     */
+    private void accept(final Selector selector) throws IOException {
+        final SocketChannel client = this.channel.accept();
+        if (client != null) {
+            new FtNio.Connection(client, this.idle).register(selector);
+        }
+    }
+
+    /**
+     * Close connections, which wait for the head of a request too long.
+     * @param selector Selector
+     * @param now Current time, in milliseconds
+     */
+    private static void expire(final Selector selector, final long now) {
+        for (final SelectionKey key : selector.keys()) {
+            final Object conn = key.attachment();
+            if (key.isValid() && conn instanceof FtNio.Connection
+                && ((FtNio.Connection) conn).expired(now)) {
+                key.cancel();
+                ((FtNio.Connection) conn).close();
+            }
+        }
+    }
+
+    /**
+     * Give the connection to the back and park it afterwards,
+     * if it's still open.
+     * @param conn Connection with a complete head
+     * @param selector Selector
+     * @param parked Connections to return to the selector
+     */
+    private void dispatch(final FtNio.Connection conn,
+        final Selector selector, final Queue<FtNio.Connection> parked) {
+        try {
+            final Socket socket = conn.socket();
+            this.back.accept(socket);
+            if (socket.isClosed()) {
+                conn.close();
+            } else {
+                conn.park();
+                parked.add(conn);
+                selector.wakeup();
+            }
+        } catch (final IOException ex) {
+            conn.close();
+        }
+    }
+
+    /**
+     * Open a server socket channel bound to the given port.
+     * @param port Port
+     * @return Channel
+     * @throws IOException If fails
+     */
+    private static ServerSocketChannel bound(final int port)
+        throws IOException {
+        final ServerSocketChannel chnl = ServerSocketChannel.open();
+        chnl.bind(new InetSocketAddress(port));
+        return chnl;
+    }
+
+    /**
+     * Client connection, accumulating the head of the next request.
+     *
+     * <p>The class is mutable and NOT thread-safe, it is used either by
+     * the selector thread or by one of the workers, never by both
+     * at the same time.
+     *
+     * @since 2.0
+     */
+    private static final class Connection {
+
+        /**
+         * Client channel.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * How long to wait for the head, in milliseconds.
+         */
+        private final int idle;
+
+        /**
+         * When to stop waiting for the head, in milliseconds.
+         */
+        private long deadline;
+
+        /**
+         * Bytes received so far.
+         */
+        private byte[] bytes;
+
+        /**
+         * How many of the bytes are used.
+         */
+        private int size;
+
+        /**
+         * Ctor.
+         * @param chnl Client channel
+         * @param msec How long to wait for the head, in milliseconds
+         */
+        Connection(final SocketChannel chnl, final int msec) {
+            this.channel = chnl;
+            this.idle = msec;
+            // @checkstyle MagicNumber (1 line)
+            this.bytes = new byte[512];
+        }
+
+        /**
+         * Register this connection in the selector, for reading,
+         * and start waiting for the head.
+         * @param selector Selector
+         */
+        public void register(final Selector selector) {
+            this.deadline = System.currentTimeMillis() + this.idle;
+            try {
+                this.channel.configureBlocking(false);
+                this.channel.register(selector, SelectionKey.OP_READ, this);
+            } catch (final IOException ex) {
+                this.close();
+            }
+        }
+
+        /**
+         * Read what is available.
+         * @param buffer Buffer to read through
+         * @return TRUE if the head of the request is complete
+         */
+        public boolean read(final ByteBuffer buffer) {
+            boolean complete = false;
+            try {
+                buffer.clear();
+                final int len = this.channel.read(buffer);
+                if (len < 0) {
+                    this.close();
+                } else {
+                    buffer.flip();
+                    final int from = Math.max(0, this.size - 3);
+                    this.append(buffer);
+                    complete = this.size > RqLive.LIMIT
+                        || this.complete(from);
+                }
+            } catch (final IOException ex) {
+                this.close();
+            }
+            return complete;
+        }
+
+        /**
+         * Whether it waits for the head too long.
+         * @param now Current time, in milliseconds
+         * @return TRUE if so
+         */
+        public boolean expired(final long now) {
+            return now >= this.deadline;
+        }
+
+        /**
+         * Socket to give to the back, in blocking mode.
+         * @return Socket
+         * @throws IOException If fails
+         */
+        public Socket socket() throws IOException {
+            this.channel.configureBlocking(true);
+            final InputStream prefix = new ByteArrayInputStream(
+                Arrays.copyOf(this.bytes, this.size)
+            );
+            this.size = 0;
+            return new FtNio.Wired(this.channel, prefix);
+        }
+
+        /**
+         * Prepare the connection to go back to the selector.
+         * @throws IOException If fails
+         */
+        public void park() throws IOException {
+            this.channel.configureBlocking(false);
+        }
+
+        /**
+         * Close it quietly.
+         */
+        public void close() {
+            try {
+                this.channel.close();
+            } catch (final IOException ignored) {
+            }
+        }
+
+        /**
+         * Append bytes from the buffer.
+         * @param buffer Buffer, ready to be read
+         */
+        private void append(final ByteBuffer buffer) {
+            final int len = buffer.remaining();
+            if (this.size + len > this.bytes.length) {
+                this.bytes = Arrays.copyOf(
+                    this.bytes,
+                    Math.max(this.bytes.length << 1, this.size + len)
+                );
+            }
+            buffer.get(this.bytes, this.size, len);
+            this.size += len;
+        }
+
+        /**
+         * Does it contain an empty line, which terminates the head?
+         * @param from Where to start looking from
+         * @return TRUE if the head is complete
+         */
+        private boolean complete(final int from) {
+            boolean found = false;
+            for (int idx = from; idx + 3 < this.size; ++idx) {
+                if (this.bytes[idx] == '\r' && this.bytes[idx + 1] == '\n'
+                    && this.bytes[idx + 2] == '\r'
+                    && this.bytes[idx + 3] == '\n') {
+                    found = true;
+                    break;
+                }
+            }
+            return found;
+        }
+    }
+
+    /**
+     * Socket on top of a channel, which starts reading with the bytes
+     * already received by the selector.
+     *
+     * <p>Closing its streams doesn't close the connection, only
+     * {@link #close()} does.
+     *
+     * @since 2.0
+     */
+    private static final class Wired extends Socket {
+
+        /**
+         * Client channel.
+         */
+        private final SocketChannel channel;
+
+        /**
+         * Input, starting with the bytes already received.
+         */
+        private final InputStream input;
+
+        /**
+         * Output.
+         */
+        private final OutputStream output;
+
+        /**
+         * Ctor.
+         * @param chnl Client channel, in blocking mode
+         * @param prefix Bytes already received
+         * @throws IOException If fails
+         */
+        Wired(final SocketChannel chnl, final InputStream prefix)
+            throws IOException {
+            super();
+            this.channel = chnl;
+            this.input = new FilterInputStream(
+                new SequenceInputStream(
+                    prefix, chnl.socket().getInputStream()
+                )
+            ) {
+                @Override
+                public void close() {
+                    // the connection stays open
+                }
+            };
+            this.output = new FilterOutputStream(
+                chnl.socket().getOutputStream()
+            ) {
+                @Override
+                public void write(final byte[] buf, final int off,
+                    final int len) throws IOException {
+                    this.out.write(buf, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    this.flush();
+                }
+            };
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return this.input;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return this.output;
+        }
+
+        @Override
+        public SocketChannel getChannel() {
+            return this.channel;
+        }
+
+        @Override
+        public InetAddress getInetAddress() {
+            return this.channel.socket().getInetAddress();
+        }
+
+        @Override
+        public int getPort() {
+            return this.channel.socket().getPort();
+        }
+
+        @Override
+        public InetAddress getLocalAddress() {
+            return this.channel.socket().getLocalAddress();
+        }
+
+        @Override
+        public int getLocalPort() {
+            return this.channel.socket().getLocalPort();
+        }
+
+        @Override
+        public void setSoTimeout(final int timeout) throws SocketException {
+            this.channel.socket().setSoTimeout(timeout);
+        }
+
+        @Override
+        public int getSoTimeout() throws SocketException {
+            return this.channel.socket().getSoTimeout();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !this.channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
@@ -134,15 +134,29 @@ final class Options {
 
     /**
      * Get the threads.
+     *
+     * <p>When {@code --threads=virtual} is specified, this is the size
+     * of the pool used on runtimes without virtual threads.
      * @return Threads
      */
     public int threads() {
-        return Integer.parseInt(
-            this.map.getOrDefault(
-                "threads",
-                String.valueOf(Runtime.getRuntime().availableProcessors() << 2)
-            )
-        );
+        final String threads = this.map.get("threads");
+        final int total;
+        if (threads == null || this.virtual()) {
+            total = Runtime.getRuntime().availableProcessors() << 2;
+        } else {
+            total = Integer.parseInt(threads);
+        }
+        return total;
+    }
+
+    /**
+     * Shall we run requests in virtual threads?
+     * @return TRUE if {@code --threads=virtual} is specified
+     * @since 2.0
+     */
+    public boolean virtual() {
+        return "virtual".equals(this.map.get("threads"));
     }
 
     /**
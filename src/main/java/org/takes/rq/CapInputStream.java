@@ -58,10 +58,16 @@ final class CapInputStream extends InputStream {
 
     @Override
     public int available() throws IOException {
-        return (int) Math.min(
-            (long) Integer.MAX_VALUE,
-            Math.max((long) this.origin.available(), this.more)
-        );
+        final int avail;
+        if (this.more <= 0L) {
+            avail = 0;
+        } else {
+            avail = (int) Math.min(
+                (long) Integer.MAX_VALUE,
+                Math.max((long) this.origin.available(), this.more)
+            );
+        }
+        return avail;
     }
 
     @Override
@@ -96,7 +102,14 @@ final class CapInputStream extends InputStream {
 
     @Override
     public long skip(final long num) throws IOException {
-        return this.origin.skip(num);
+        final long skipped;
+        if (this.more <= 0L) {
+            skipped = 0L;
+        } else {
+            skipped = this.origin.skip(Math.min(num, this.more));
+            this.more -= skipped;
+        }
+        return skipped;
     }
 
     @Override
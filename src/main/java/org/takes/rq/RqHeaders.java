@@ -26,19 +26,18 @@ package org.takes.rq;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import lombok.EqualsAndHashCode;
+import org.cactoos.scalar.IoChecked;
+import org.cactoos.scalar.Sticky;
 import org.cactoos.text.FormattedText;
-import org.cactoos.text.Lowered;
-import org.cactoos.text.TextOf;
-import org.cactoos.text.Trimmed;
-import org.cactoos.text.UncheckedText;
 import org.takes.HttpException;
 import org.takes.Request;
 import org.takes.misc.VerboseList;
@@ -74,12 +73,22 @@ public interface RqHeaders extends Request {
     /**
      * Request decorator, for HTTP headers parsing.
      *
+     * <p>Headers are parsed on every call, unless the original request
+     * is {@link RqHeaders.Indexed}, which parses them only once. In that
+     * case its index is reused.
+     *
      * <p>The class is immutable and thread-safe.
      *
      * @since 0.13.8
      */
-    @EqualsAndHashCode(callSuper = true)
+    @EqualsAndHashCode(callSuper = true, exclude = "index")
     final class Base extends RqWrap implements RqHeaders {
+
+        /**
+         * Index of headers.
+         */
+        private final IoChecked<Map<String, List<String>>> index;
+
         /**
          * Ctor.
          *
@@ -87,15 +96,37 @@ public interface RqHeaders extends Request {
          */
         public Base(final Request req) {
             super(req);
+            if (req instanceof RqHeaders.Indexed) {
+                this.index = ((RqHeaders.Indexed) req).index;
+            } else {
+                this.index = new IoChecked<>(
+                    () -> RqHeaders.Base.parse(req.head())
+                );
+            }
         }
 
         @Override
         public List<String> header(final CharSequence key)
             throws IOException {
-            final List<String> values = this.map().getOrDefault(
-                new UncheckedText(
-                    new Lowered(key.toString())
-                ).asString(),
+            return RqHeaders.Base.header(this.index.value(), key);
+        }
+
+        @Override
+        public Set<String> names() throws IOException {
+            return this.index.value().keySet();
+        }
+
+        /**
+         * Find header in the map.
+         *
+         * @param map Map of headers
+         * @param key Header name
+         * @return List of values (can be empty)
+         */
+        private static List<String> header(final Map<String, List<String>> map,
+            final CharSequence key) {
+            final List<String> values = map.getOrDefault(
+                key.toString().toLowerCase(Locale.ENGLISH),
                 Collections.emptyList()
             );
             final List<String> list;
@@ -106,8 +137,8 @@ public interface RqHeaders extends Request {
                         // @checkstyle LineLengthCheck (1 line)
                         "there are no headers by name \"%s\" among %d others: %s",
                         key,
-                        this.map().size(),
-                        this.map().keySet()
+                        map.size(),
+                        map.keySet()
                     )
                 );
             } else {
@@ -124,20 +155,17 @@ public interface RqHeaders extends Request {
             return list;
         }
 
-        @Override
-        public Set<String> names() throws IOException {
-            return this.map().keySet();
-        }
-
         /**
          * Parse them all in a map.
          *
-         * @return Map of them
+         * @param lines Lines of the head
+         * @return Map of them, with lower-cased names
          * @throws IOException If fails
          */
         @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-        private Map<String, List<String>> map() throws IOException {
-            final Iterator<String> head = this.head().iterator();
+        private static Map<String, List<String>> parse(
+            final Iterable<String> lines) throws IOException {
+            final Iterator<String> head = lines.iterator();
             if (!head.hasNext()) {
                 throw new HttpException(
                     HttpURLConnection.HTTP_BAD_REQUEST,
@@ -148,26 +176,79 @@ public interface RqHeaders extends Request {
             final Map<String, List<String>> map = new HashMap<>(0);
             while (head.hasNext()) {
                 final String line = head.next();
-                final String[] parts = line.split(":", 2);
-                if (parts.length < 2) {
+                final int colon = line.indexOf(':');
+                if (colon < 0) {
                     throw new HttpException(
                         HttpURLConnection.HTTP_BAD_REQUEST,
                         String.format("invalid HTTP header: \"%s\"", line)
                     );
                 }
-                final String key = new UncheckedText(
-                    new Lowered(new Trimmed(new TextOf(parts[0])))
-                ).asString();
-                if (!map.containsKey(key)) {
-                    map.put(key, new LinkedList<>());
-                }
-                map.get(key).add(
-                    new UncheckedText(
-                        new Trimmed(new TextOf(parts[1]))
-                    ).asString()
-                );
+                map.computeIfAbsent(
+                    line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH),
+                    name -> new ArrayList<>(1)
+                ).add(line.substring(colon + 1).trim());
+            }
+            for (final Map.Entry<String, List<String>> entry
+                : map.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
             }
-            return map;
+            return Collections.unmodifiableMap(map);
+        }
+    }
+
+    /**
+     * Request decorator, which parses HTTP headers only once.
+     *
+     * <p>Headers are parsed on the first call and kept in an immutable
+     * case-insensitive index. Every {@link RqHeaders.Base} made of this
+     * request reuses the index, instead of parsing the head again. Thus,
+     * when a request goes through many forks, each of them checking
+     * some headers, the head is parsed just once.
+     *
+     * <p>The class is immutable and thread-safe.
+     *
+     * @since 2.0
+     */
+    @EqualsAndHashCode(callSuper = true, exclude = "index")
+    final class Indexed extends RqWrap implements RqHeaders {
+
+        /**
+         * Index of headers.
+         */
+        private final IoChecked<Map<String, List<String>>> index;
+
+        /**
+         * Ctor.
+         *
+         * @param req Original request
+         */
+        public Indexed(final Request req) {
+            super(req);
+            this.index = new IoChecked<>(
+                new Sticky<>(() -> RqHeaders.Base.parse(req.head()))
+            );
+        }
+
+        /**
+         * Ctor, with the same head and index, but another body.
+         *
+         * @param req Request with headers already indexed
+         * @param body Body to use instead of the original one
+         */
+        public Indexed(final RqHeaders.Indexed req, final InputStream body) {
+            super(new RequestOf(req::head, () -> body));
+            this.index = req.index;
+        }
+
+        @Override
+        public List<String> header(final CharSequence key)
+            throws IOException {
+            return RqHeaders.Base.header(this.index.value(), key);
+        }
+
+        @Override
+        public Set<String> names() throws IOException {
+            return this.index.value().keySet();
         }
     }
 
@@ -23,170 +23,316 @@
  */
 package org.takes.rq;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
-import java.util.Collection;
-import java.util.LinkedList;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import lombok.EqualsAndHashCode;
-import org.cactoos.text.FormattedText;
-import org.cactoos.text.TextOf;
-import org.cactoos.text.UncheckedText;
 import org.takes.HttpException;
 import org.takes.Request;
-import org.takes.misc.Opt;
 
 /**
  * Live request.
  *
+ * <p>The head is read from the stream into a buffer, which is
+ * reused by the thread for the next requests. If the stream supports
+ * {@link InputStream#mark(int)}, like {@link java.io.BufferedInputStream}
+ * does, the head is read in bulk and the stream is left positioned
+ * exactly at the first byte of the body. Otherwise, the head is read
+ * byte by byte, so that nothing after it, like the next pipelined
+ * request, is taken from the stream.
+ *
+ * <p>The head can't be longer than the limit, 16 KiB by default;
+ * a longer one is rejected with HTTP 431.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
- * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @EqualsAndHashCode(callSuper = true)
 public final class RqLive extends RqWrap {
 
+    /**
+     * Buffers to read heads into, one per thread.
+     */
+    private static final ThreadLocal<byte[]> BUFFERS =
+        // @checkstyle MagicNumber (1 line)
+        ThreadLocal.withInitial(() -> new byte[4096]);
+
+    /**
+     * Default maximum length of the head, in bytes.
+     */
+    public static final int LIMIT = 16 * 1024;
+
+    /**
+     * HTTP status "Request Header Fields Too Large".
+     */
+    private static final int TOO_LARGE = 431;
+
     /**
      * Ctor.
      * @param input Input stream
      * @throws IOException If fails
      */
     public RqLive(final InputStream input) throws IOException {
-        super(RqLive.parse(input));
+        this(input, RqLive.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     * @param input Input stream
+     * @param limit Maximum length of the head, in bytes
+     * @throws IOException If fails
+     * @since 2.0
+     */
+    public RqLive(final InputStream input, final int limit)
+        throws IOException {
+        super(RqLive.parse(input, limit));
     }
 
     /**
      * Parse input stream.
      * @param input Input stream
+     * @param limit Maximum length of the head
      * @return Request
      * @throws IOException If fails
-     * @checkstyle ExecutableStatementCountCheck (100 lines)
      */
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-    private static Request parse(final InputStream input) throws IOException {
-        boolean eof = true;
-        final Collection<String> head = new LinkedList<>();
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Opt<Integer> data = new Opt.Empty<>();
-        data = RqLive.data(input, data, false);
-        while (data.get() > 0) {
-            eof = false;
-            if (data.get() == '\r') {
-                RqLive.checkLineFeed(input, baos, head.size() + 1);
-                if (baos.size() == 0) {
-                    break;
-                }
-                data = new Opt.Single<>(input.read());
-                final Opt<String> header = RqLive.newHeader(data, baos);
-                if (header.has()) {
-                    head.add(header.get());
-                }
-                data = RqLive.data(input, data, false);
-                continue;
-            }
-            baos.write(RqLive.legalCharacter(data, baos, head.size() + 1));
-            data = RqLive.data(input, new Opt.Empty<>(), true);
+    private static Request parse(final InputStream input, final int limit)
+        throws IOException {
+        final boolean marked = input.markSupported();
+        if (marked) {
+            input.mark(limit);
         }
-        if (eof) {
-            throw new IOException("empty request");
+        final RqLive.Head head = new RqLive.Head(
+            RqLive.BUFFERS.get(), limit, marked
+        );
+        head.parse(input);
+        if (marked) {
+            input.reset();
+            RqLive.skip(input, head.consumed());
+            input.mark(0);
         }
-        return new RequestOf(head, input);
+        return new RequestOf(head.lines(), input);
     }
 
     /**
-     * Checks whether or not the next byte to read is a Line Feed.
-     * <p><i>Please note that this method assumes that the previous byte read
-     * was a Carriage Return.</i>
-     * @param input The input stream to read
-     * @param baos Current read header
-     * @param position Header line number
-     * @throws IOException If the next byte is not a Line Feed as expected
+     * Skip exactly that many bytes.
+     * @param input Input stream
+     * @param bytes How many bytes to skip
+     * @throws IOException If fails
      */
-    private static void checkLineFeed(final InputStream input,
-        final ByteArrayOutputStream baos, final Integer position)
+    private static void skip(final InputStream input, final int bytes)
         throws IOException {
-        if (input.read() != '\n') {
-            throw new HttpException(
-                HttpURLConnection.HTTP_BAD_REQUEST,
-                new FormattedText(
-                    "there is no LF after CR in header, line #%d: \"%s\"",
-                    position,
-                    new TextOf(baos.toByteArray())
-                ).toString()
-            );
+        long left = bytes;
+        while (left > 0L) {
+            final long skipped = input.skip(left);
+            if (skipped <= 0L) {
+                throw new IOException("can't skip the head of the request");
+            }
+            left -= skipped;
         }
     }
 
     /**
-     * Builds current read header.
-     * @param data Current read character
-     * @param baos Current read header
-     * @return Read header
+     * Head being parsed, a state machine over the bytes of the buffer.
+     *
+     * <p>Content bytes of the current line are moved to the left
+     * in the same buffer, dropping CRLF of folded lines.
+     *
+     * <p>The class is mutable and NOT thread-safe.
+     *
+     * @since 2.0
      */
-    private static Opt<String> newHeader(final Opt<Integer> data,
-        final ByteArrayOutputStream baos) {
-        Opt<String> header = new Opt.Empty<>();
-        if (data.get() != ' ' && data.get() != '\t') {
-            header = new Opt.Single<>(
-                new UncheckedText(
-                    new TextOf(
-                        baos.toByteArray()
-                    )
-                ).asString()
-            );
-            baos.reset();
+    private static final class Head {
+
+        /**
+         * Lines parsed.
+         */
+        private final List<String> head;
+
+        /**
+         * Maximum length of the head.
+         */
+        private final int limit;
+
+        /**
+         * Whether the stream may be read past the head.
+         */
+        private final boolean bulk;
+
+        /**
+         * Buffer.
+         */
+        private byte[] buf;
+
+        /**
+         * How many bytes of the buffer are filled.
+         */
+        private int size;
+
+        /**
+         * Position of the next byte to parse.
+         */
+        private int read;
+
+        /**
+         * Position where the next content byte goes to.
+         */
+        private int write;
+
+        /**
+         * Position where the current line starts.
+         */
+        private int line;
+
+        /**
+         * Ctor.
+         * @param buffer Buffer to use
+         * @param max Maximum length of the head
+         * @param marked Whether the stream will be reset after the head
+         */
+        Head(final byte[] buffer, final int max, final boolean marked) {
+            this.head = new ArrayList<>(0);
+            this.buf = buffer;
+            this.limit = max;
+            this.bulk = marked;
         }
-        return header;
-    }
 
-    /**
-     * Returns a legal character based n the read character.
-     * @param data Character read
-     * @param baos Byte stream containing read header
-     * @param position Header line number
-     * @return A legal character
-     * @throws IOException if character is illegal
-     */
-    private static Integer legalCharacter(final Opt<Integer> data,
-        final ByteArrayOutputStream baos, final Integer position)
-        throws IOException {
-        // @checkstyle MagicNumber (1 line)
-        if ((data.get() > 0x7f || data.get() < 0x20)
-            && data.get() != '\t') {
-            throw new HttpException(
-                HttpURLConnection.HTTP_BAD_REQUEST,
-                String.format(
-                    "illegal character 0x%02X in HTTP header line #%d: \"%s\"",
-                    data.get(),
-                    position,
-                    new TextOf(baos.toByteArray())
-                )
-            );
+        /**
+         * Read and parse the head.
+         * @param input Input stream
+         * @throws IOException If fails
+         */
+        @SuppressWarnings("PMD.CyclomaticComplexity")
+        public void parse(final InputStream input) throws IOException {
+            int data = this.next(input);
+            if (data < 0) {
+                throw new IOException("empty request");
+            }
+            while (data >= 0) {
+                if (data == '\r') {
+                    if (this.next(input) != '\n') {
+                        throw new HttpException(
+                            HttpURLConnection.HTTP_BAD_REQUEST,
+                            String.format(
+                                // @checkstyle LineLengthCheck (1 line)
+                                "there is no LF after CR in header, line #%d: \"%s\"",
+                                this.head.size() + 1,
+                                this.current()
+                            )
+                        );
+                    }
+                    if (this.write == this.line) {
+                        break;
+                    }
+                    data = this.next(input);
+                    if (data != ' ' && data != '\t') {
+                        this.head.add(this.current());
+                        this.line = this.write;
+                    }
+                    continue;
+                }
+                this.legal(data);
+                this.buf[this.write] = (byte) data;
+                ++this.write;
+                data = this.next(input);
+            }
         }
-        return data.get();
-    }
 
-    /**
-     * Obtains new byte if hasn't.
-     * @param input Stream
-     * @param data Empty or current data
-     * @param available Indicates whether or not it should check first if there
-     *  are available bytes
-     * @return Next or current data
-     * @throws IOException if input.read() fails
-     */
-    private static Opt<Integer> data(final InputStream input,
-        final Opt<Integer> data, final boolean available) throws IOException {
-        final Opt<Integer> ret;
-        if (data.has()) {
-            ret = data;
-        } else if (available && input.available() <= 0) {
-            ret = new Opt.Single<>(-1);
-        } else {
-            ret = new Opt.Single<>(input.read());
+        /**
+         * Lines of the head.
+         * @return Lines
+         */
+        public List<String> lines() {
+            return this.head;
+        }
+
+        /**
+         * How many bytes of the stream belong to the head.
+         * @return Total bytes
+         */
+        public int consumed() {
+            return this.read;
+        }
+
+        /**
+         * Next byte of the stream, reading a new portion if necessary.
+         * @param input Input stream
+         * @return Byte or -1 if the stream is over
+         * @throws IOException If fails
+         */
+        private int next(final InputStream input) throws IOException {
+            if (this.read == this.size) {
+                if (this.size == this.limit) {
+                    throw new HttpException(
+                        RqLive.TOO_LARGE,
+                        String.format(
+                            "the head of the request is longer than %d bytes",
+                            this.limit
+                        )
+                    );
+                }
+                if (this.size == this.buf.length) {
+                    this.buf = Arrays.copyOf(
+                        this.buf, Math.min(this.buf.length << 1, this.limit)
+                    );
+                }
+                final int len;
+                if (this.bulk) {
+                    len = input.read(
+                        this.buf, this.size,
+                        Math.min(this.buf.length, this.limit) - this.size
+                    );
+                } else {
+                    len = input.read(this.buf, this.size, 1);
+                }
+                if (len > 0) {
+                    this.size += len;
+                }
+            }
+            final int data;
+            if (this.read < this.size) {
+                // @checkstyle MagicNumber (1 line)
+                data = this.buf[this.read] & 0xff;
+                ++this.read;
+            } else {
+                data = -1;
+            }
+            return data;
+        }
+
+        /**
+         * Make sure the character is legal in the head.
+         * @param data Character read
+         * @throws HttpException If it's illegal
+         */
+        private void legal(final int data) throws HttpException {
+            // @checkstyle MagicNumber (1 line)
+            if ((data > 0x7f || data < 0x20) && data != '\t') {
+                throw new HttpException(
+                    HttpURLConnection.HTTP_BAD_REQUEST,
+                    String.format(
+                        "illegal character 0x%02X in HTTP header line #%d: \"%s\"",
+                        data,
+                        this.head.size() + 1,
+                        this.current()
+                    )
+                );
+            }
+        }
+
+        /**
+         * Content of the current line.
+         * @return Line
+         */
+        private String current() {
+            return new String(
+                this.buf, this.line, this.write - this.line,
+                StandardCharsets.US_ASCII
+            );
         }
-        return ret;
     }
 }
@@ -34,6 +34,8 @@ import org.takes.Response;
  * Response body decorator that can print an entire body response in HTTP
  * format.
  *
+ * <p>Its {@link #length()} is the number of bytes in the body.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 2.0
@@ -81,6 +83,18 @@ public final class BodyPrint implements Body, Text {
 
     @Override
     public int length() throws IOException {
-        return this.asString().length();
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buf = new byte[4096];
+        int length = 0;
+        try (InputStream body = this.response.body()) {
+            while (true) {
+                final int bts = body.read(buf);
+                if (bts < 0) {
+                    break;
+                }
+                length += bts;
+            }
+        }
+        return length;
     }
 }
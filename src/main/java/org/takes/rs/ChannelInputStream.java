@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Input stream of a file, or a region of it, backed by a file channel.
+ *
+ * <p>It can be read as any other stream, but it can also be transferred
+ * to a channel with {@link #transfer(WritableByteChannel)}, which uses
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. When
+ * the target is a socket, the bytes go from the file to the socket
+ * without being copied into user space. {@link org.takes.http.BkBasic}
+ * does that for bodies of this type.
+ *
+ * <p>Method {@link #available()} returns the exact number of bytes left,
+ * thus {@link RsWithBody} reports the exact {@code Content-Length}.
+ *
+ * <p>The file is opened on the first access.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ */
+public final class ChannelInputStream extends InputStream {
+
+    /**
+     * The file.
+     */
+    private final Path path;
+
+    /**
+     * Position of the first byte of the region.
+     */
+    private final long offset;
+
+    /**
+     * Maximum length of the region.
+     */
+    private final long length;
+
+    /**
+     * Channel, when opened.
+     */
+    private FileChannel channel;
+
+    /**
+     * Position of the next byte to read.
+     */
+    private long pos;
+
+    /**
+     * Position right after the last byte of the region.
+     */
+    private long end;
+
+    /**
+     * Ctor.
+     * @param file The file
+     */
+    public ChannelInputStream(final Path file) {
+        this(file, 0L, Long.MAX_VALUE);
+    }
+
+    /**
+     * Ctor.
+     * @param file The file
+     * @param start Position of the first byte of the region
+     * @param len Maximum length of the region
+     */
+    public ChannelInputStream(final Path file, final long start,
+        final long len) {
+        super();
+        this.path = file;
+        this.offset = start;
+        this.length = len;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] data = new byte[1];
+        final int result;
+        if (this.read(data, 0, 1) < 0) {
+            result = -1;
+        } else {
+            // @checkstyle MagicNumber (1 line)
+            result = data[0] & 0xff;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        final FileChannel chan = this.open();
+        final int count;
+        if (len == 0) {
+            count = 0;
+        } else if (this.pos >= this.end) {
+            count = -1;
+        } else {
+            count = chan.read(
+                ByteBuffer.wrap(
+                    buf, off, (int) Math.min((long) len, this.end - this.pos)
+                ),
+                this.pos
+            );
+            if (count > 0) {
+                this.pos += (long) count;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(final long num) throws IOException {
+        this.open();
+        final long skipped = Math.max(0L, Math.min(num, this.end - this.pos));
+        this.pos += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        this.open();
+        return (int) Math.min((long) Integer.MAX_VALUE, this.end - this.pos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.channel != null) {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Transfer the rest of the stream to the channel.
+     * @param target The channel to write to
+     * @return How many bytes were transferred
+     * @throws IOException If fails
+     */
+    public long transfer(final WritableByteChannel target) throws IOException {
+        final FileChannel chan = this.open();
+        final long start = this.pos;
+        while (this.pos < this.end) {
+            final long sent = chan.transferTo(
+                this.pos, this.end - this.pos, target
+            );
+            if (sent <= 0L) {
+                throw new IOException(
+                    String.format(
+                        "Can't transfer %d bytes of %s at position %d",
+                        this.end - this.pos, this.path, this.pos
+                    )
+                );
+            }
+            this.pos += sent;
+        }
+        return this.pos - start;
+    }
+
+    /**
+     * Open the channel, if not yet.
+     * @return The channel
+     * @throws IOException If fails
+     */
+    private FileChannel open() throws IOException {
+        if (this.channel == null) {
+            this.channel = FileChannel.open(this.path, StandardOpenOption.READ);
+            final long size = this.channel.size();
+            this.pos = Math.min(this.offset, size);
+            this.end = this.pos + Math.min(this.length, size - this.pos);
+        }
+        return this.channel;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Input stream, which encodes the original stream in chunks.
+ *
+ * <p>Every portion of bytes read from the original stream becomes
+ * a chunk, with its size in hex before it. The last chunk is empty.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ */
+final class ChunkingInputStream extends InputStream {
+
+    /**
+     * Maximum size of a chunk.
+     */
+    private static final int SIZE = 8192;
+
+    /**
+     * Space reserved for the size line of a chunk.
+     */
+    private static final int HEAD = 10;
+
+    /**
+     * End of line.
+     */
+    private static final byte[] EOL = {'\r', '\n'};
+
+    /**
+     * The last chunk, with empty trailer.
+     */
+    private static final byte[] LAST = "0\r\n\r\n".getBytes(
+        StandardCharsets.US_ASCII
+    );
+
+    /**
+     * Original stream.
+     */
+    private final InputStream origin;
+
+    /**
+     * Chunk being read, with its size line and CRLF.
+     */
+    private byte[] chunk;
+
+    /**
+     * Position in the chunk.
+     */
+    private int pos;
+
+    /**
+     * Length of the chunk.
+     */
+    private int limit;
+
+    /**
+     * Whether the last chunk is made already.
+     */
+    private boolean done;
+
+    /**
+     * Ctor.
+     * @param stream Original stream
+     */
+    ChunkingInputStream(final InputStream stream) {
+        super();
+        this.origin = stream;
+        this.chunk = new byte[0];
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int data;
+        if (this.pos == this.limit && !this.next()) {
+            data = -1;
+        } else {
+            // @checkstyle MagicNumber (1 line)
+            data = this.chunk[this.pos] & 0xff;
+            ++this.pos;
+        }
+        return data;
+    }
+
+    @Override
+    public int read(final byte[] buf) throws IOException {
+        return this.read(buf, 0, buf.length);
+    }
+
+    @Override
+    public int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        final int count;
+        if (len == 0) {
+            count = 0;
+        } else if (this.pos == this.limit && !this.next()) {
+            count = -1;
+        } else {
+            count = Math.min(len, this.limit - this.pos);
+            System.arraycopy(this.chunk, this.pos, buf, off, count);
+            this.pos += count;
+        }
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.limit - this.pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.origin.close();
+    }
+
+    /**
+     * Make the next chunk.
+     * @return FALSE if there are no more chunks
+     * @throws IOException If fails
+     */
+    private boolean next() throws IOException {
+        final boolean more = !this.done;
+        if (more) {
+            if (this.chunk.length == 0) {
+                this.chunk = new byte[ChunkingInputStream.HEAD
+                    + ChunkingInputStream.SIZE
+                    + ChunkingInputStream.EOL.length];
+            }
+            int len = 0;
+            while (len == 0) {
+                len = this.origin.read(
+                    this.chunk, ChunkingInputStream.HEAD,
+                    ChunkingInputStream.SIZE
+                );
+            }
+            if (len < 0) {
+                this.pos = 0;
+                this.limit = ChunkingInputStream.LAST.length;
+                System.arraycopy(
+                    ChunkingInputStream.LAST, 0, this.chunk, 0, this.limit
+                );
+                this.done = true;
+            } else {
+                this.frame(len);
+            }
+        }
+        return more;
+    }
+
+    /**
+     * Put the size line before the data and CRLF after it.
+     * @param len Length of the data, which starts right after the space
+     *  reserved for the size line
+     */
+    private void frame(final int len) {
+        final byte[] size = String.format("%x\r\n", len)
+            .getBytes(StandardCharsets.US_ASCII);
+        this.pos = ChunkingInputStream.HEAD - size.length;
+        System.arraycopy(size, 0, this.chunk, this.pos, size.length);
+        this.limit = ChunkingInputStream.HEAD + len;
+        System.arraycopy(
+            ChunkingInputStream.EOL, 0, this.chunk, this.limit,
+            ChunkingInputStream.EOL.length
+        );
+        this.limit += ChunkingInputStream.EOL.length;
+    }
+}
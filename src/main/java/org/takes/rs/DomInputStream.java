@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import org.w3c.dom.Node;
+
+/**
+ * Input stream of XML document, which is kept as DOM.
+ *
+ * <p>The stream can be read as any other stream, or written straight
+ * to the destination with {@link #writeTo(OutputStream)}, in UTF-8,
+ * see {@link PushInputStream}. Besides that, {@link RsXslt} takes its
+ * DOM node with {@link #node()} and transforms it without printing and
+ * parsing the document again.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ */
+public final class DomInputStream extends InputStream {
+
+    /**
+     * DOM node.
+     */
+    private final Node dom;
+
+    /**
+     * Printed node.
+     */
+    private final PushInputStream origin;
+
+    /**
+     * Ctor.
+     * @param node DOM node
+     */
+    public DomInputStream(final Node node) {
+        super();
+        this.dom = node;
+        this.origin = new PushInputStream(
+            output -> {
+                final Writer writer = new OutputStreamWriter(
+                    output, StandardCharsets.UTF_8
+                );
+                TransformerFactory.newInstance().newTransformer().transform(
+                    new DOMSource(node), new StreamResult(writer)
+                );
+                writer.flush();
+            }
+        );
+    }
+
+    /**
+     * DOM node.
+     * @return Node
+     */
+    public Node node() {
+        return this.dom;
+    }
+
+    /**
+     * Write the document to the output, which stays open.
+     * @param output Output
+     * @throws IOException If fails
+     */
+    public void writeTo(final OutputStream output) throws IOException {
+        this.origin.writeTo(output);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return this.origin.read();
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len)
+        throws IOException {
+        return this.origin.read(bytes, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.origin.available();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Input stream, which compresses the original stream with GZIP,
+ * according to RFC 1952, while it's read.
+ *
+ * <p>Deflaters are taken from a pool and returned there when the
+ * stream is read to the end or closed, so that native memory is not
+ * allocated for every stream.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ */
+final class GzipInputStream extends InputStream {
+
+    /**
+     * Maximum number of idle deflaters in the pool.
+     */
+    private static final int IDLE = 32;
+
+    /**
+     * Size of buffers.
+     */
+    private static final int SIZE = 8192;
+
+    /**
+     * GZIP header: magic, deflate method, no flags, no time, unknown OS.
+     */
+    private static final byte[] HEADER = {
+        // @checkstyle MagicNumber (1 line)
+        (byte) 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff,
+    };
+
+    /**
+     * Idle deflaters.
+     */
+    private static final Queue<Deflater> POOL =
+        new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of idle deflaters.
+     */
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    /**
+     * Original stream.
+     */
+    private final InputStream origin;
+
+    /**
+     * Compression level.
+     */
+    private final int level;
+
+    /**
+     * Checksum of the original bytes.
+     */
+    private final CRC32 crc;
+
+    /**
+     * Bytes read from the original stream.
+     */
+    private final byte[] input;
+
+    /**
+     * Compressed bytes to be read.
+     */
+    private final byte[] output;
+
+    /**
+     * Position in the output.
+     */
+    private int pos;
+
+    /**
+     * Length of the output.
+     */
+    private int limit;
+
+    /**
+     * Deflater, while compressing.
+     */
+    private Deflater deflater;
+
+    /**
+     * Whether the header is made already.
+     */
+    private boolean started;
+
+    /**
+     * Whether the trailer is made already.
+     */
+    private boolean done;
+
+    /**
+     * Ctor.
+     * @param stream Original stream
+     * @param lvl Compression level, from 0 to 9, or -1 for default
+     */
+    GzipInputStream(final InputStream stream, final int lvl) {
+        super();
+        this.origin = stream;
+        this.level = lvl;
+        this.crc = new CRC32();
+        this.input = new byte[GzipInputStream.SIZE];
+        this.output = new byte[GzipInputStream.SIZE];
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int data;
+        if (this.pos == this.limit && !this.next()) {
+            data = -1;
+        } else {
+            // @checkstyle MagicNumber (1 line)
+            data = this.output[this.pos] & 0xff;
+            ++this.pos;
+        }
+        return data;
+    }
+
+    @Override
+    public int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        final int total;
+        if (len == 0) {
+            total = 0;
+        } else if (this.pos == this.limit && !this.next()) {
+            total = -1;
+        } else {
+            total = Math.min(len, this.limit - this.pos);
+            System.arraycopy(this.output, this.pos, buf, off, total);
+            this.pos += total;
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.release();
+        this.origin.close();
+    }
+
+    /**
+     * Make the next portion of compressed bytes.
+     * @return FALSE if there are no more bytes
+     * @throws IOException If fails
+     */
+    private boolean next() throws IOException {
+        boolean more = !this.done;
+        this.pos = 0;
+        this.limit = 0;
+        if (!this.started) {
+            this.started = true;
+            this.deflater = GzipInputStream.take(this.level);
+            System.arraycopy(
+                GzipInputStream.HEADER, 0, this.output, 0,
+                GzipInputStream.HEADER.length
+            );
+            this.limit = GzipInputStream.HEADER.length;
+        }
+        while (more && this.limit == 0) {
+            if (this.deflater.finished()) {
+                this.trailer();
+                break;
+            }
+            this.limit = this.deflater.deflate(this.output);
+            if (this.limit == 0 && this.deflater.needsInput()) {
+                final int len = this.origin.read(this.input);
+                if (len < 0) {
+                    this.deflater.finish();
+                } else {
+                    this.crc.update(this.input, 0, len);
+                    this.deflater.setInput(this.input, 0, len);
+                }
+            }
+        }
+        return more;
+    }
+
+    /**
+     * Make the trailer: checksum and size of the original bytes.
+     */
+    private void trailer() {
+        final long size = this.deflater.getBytesRead();
+        final long sum = this.crc.getValue();
+        // @checkstyle MagicNumber (5 lines)
+        for (int idx = 0; idx < 4; ++idx) {
+            this.output[idx] = (byte) (sum >>> (idx << 3));
+            this.output[idx + 4] = (byte) (size >>> (idx << 3));
+        }
+        this.limit = 8;
+        this.done = true;
+        this.release();
+    }
+
+    /**
+     * Return the deflater to the pool, if it's taken.
+     */
+    private void release() {
+        if (this.deflater != null) {
+            final Deflater def = this.deflater;
+            this.deflater = null;
+            def.reset();
+            if (GzipInputStream.POOLED.incrementAndGet()
+                <= GzipInputStream.IDLE) {
+                GzipInputStream.POOL.offer(def);
+            } else {
+                GzipInputStream.POOLED.decrementAndGet();
+                def.end();
+            }
+        }
+    }
+
+    /**
+     * Take a deflater from the pool or make a new one.
+     * @param level Compression level
+     * @return Deflater
+     */
+    private static Deflater take(final int level) {
+        Deflater def = GzipInputStream.POOL.poll();
+        if (def == null) {
+            def = new Deflater(level, true);
+        } else {
+            GzipInputStream.POOLED.decrementAndGet();
+            def.setLevel(level);
+        }
+        return def;
+    }
+}
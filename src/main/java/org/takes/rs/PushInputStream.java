@@ -0,0 +1,174 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.cactoos.Proc;
+
+/**
+ * Input stream of bytes, which are written by a procedure.
+ *
+ * <p>The procedure can write its bytes straight to the destination, with
+ * {@link #writeTo(OutputStream)}, without keeping them in memory, and
+ * the first of them may go out before the last of them are produced.
+ * {@link org.takes.http.BkBasic} does that for bodies of this type. When
+ * the stream is read as any other stream, the procedure writes its bytes
+ * into memory first.
+ *
+ * <p>The procedure runs only once.
+ *
+ * <p>The class is mutable and NOT thread-safe.
+ *
+ * @since 2.0
+ */
+public final class PushInputStream extends InputStream {
+
+    /**
+     * The procedure.
+     */
+    private final Proc<OutputStream> proc;
+
+    /**
+     * Bytes written into memory, if read.
+     */
+    private InputStream buffer;
+
+    /**
+     * Whether the procedure already ran.
+     */
+    private boolean done;
+
+    /**
+     * Ctor.
+     * @param writer Procedure writing the bytes
+     */
+    public PushInputStream(final Proc<OutputStream> writer) {
+        super();
+        this.proc = writer;
+    }
+
+    /**
+     * Write the bytes to the output, which stays open.
+     * @param output Output
+     * @throws IOException If fails
+     */
+    public void writeTo(final OutputStream output) throws IOException {
+        if (this.buffer == null) {
+            this.push(new PushInputStream.Unclosed(output));
+            output.flush();
+        } else {
+            // @checkstyle MagicNumber (1 line)
+            final byte[] buf = new byte[8192];
+            while (true) {
+                final int len = this.buffer.read(buf);
+                if (len < 0) {
+                    break;
+                }
+                output.write(buf, 0, len);
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return this.buffered().read();
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len)
+        throws IOException {
+        return this.buffered().read(bytes, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return this.buffered().available();
+    }
+
+    /**
+     * Bytes written into memory.
+     * @return Stream of them
+     * @throws IOException If fails
+     */
+    private InputStream buffered() throws IOException {
+        if (this.buffer == null) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            this.push(baos);
+            this.buffer = new ByteArrayInputStream(baos.toByteArray());
+        }
+        return this.buffer;
+    }
+
+    /**
+     * Run the procedure.
+     * @param output Where to write
+     * @throws IOException If fails
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void push(final OutputStream output) throws IOException {
+        if (this.done) {
+            throw new IOException("The bytes have been written already");
+        }
+        this.done = true;
+        try {
+            this.proc.exec(output);
+        } catch (final IOException ex) {
+            throw ex;
+        // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Exception ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Output stream, which only flushes when closed.
+     * @since 2.0
+     */
+    private static final class Unclosed extends FilterOutputStream {
+
+        /**
+         * Ctor.
+         * @param output Original output
+         */
+        Unclosed(final OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int off, final int len)
+            throws IOException {
+            this.out.write(bytes, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.flush();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.IOException;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.Request;
+import org.takes.Response;
+
+/**
+ * Response decorator, with chunked transfer encoding.
+ *
+ * <p>Use it for responses of unknown length, like large exports or
+ * pass-through streams, which otherwise have to be buffered in order to
+ * calculate {@code Content-Length}. The body is sent in chunks as soon as
+ * they are read from the original stream, according to RFC 7230,
+ * section 4.1. The {@code Content-Length} header, if any, is removed.
+ *
+ * <pre> new RsChunked(
+ *   new RsWithBody(new RsWithType(new RsEmpty(), "text/csv"), stream),
+ *   request
+ * )</pre>
+ *
+ * <p>Clients of HTTP/1.0 can't read chunks. Give the decorator the request
+ * and it sends the body to them as is, without {@code Content-Length},
+ * if it's not known, so that the end of the body is the end of
+ * the connection. Without the request, the caller must check the protocol.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public final class RsChunked extends RsWrap {
+
+    /**
+     * Transfer encoding header.
+     */
+    private static final String ENCODING = "Transfer-Encoding";
+
+    /**
+     * Ctor, which always encodes in chunks, use it only for
+     * HTTP/1.1 clients.
+     * @param res Original response
+     */
+    public RsChunked(final Response res) {
+        super(RsChunked.chunked(res));
+    }
+
+    /**
+     * Ctor, which doesn't encode in chunks for HTTP/1.0 clients.
+     * @param res Original response
+     * @param req Request
+     */
+    public RsChunked(final Response res, final Request req) {
+        super(
+            new ResponseOf(
+                () -> RsChunked.fitting(res, req).head(),
+                () -> RsChunked.fitting(res, req).body()
+            )
+        );
+    }
+
+    /**
+     * Response, which the client of the request can read.
+     * @param res Original response
+     * @param req Request
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response fitting(final Response res, final Request req)
+        throws IOException {
+        final Response fitting;
+        if (req.head().iterator().next().trim().endsWith("HTTP/1.0")) {
+            fitting = new RsWithoutHeader(res, RsChunked.ENCODING);
+        } else {
+            fitting = RsChunked.chunked(res);
+        }
+        return fitting;
+    }
+
+    /**
+     * Response encoded in chunks.
+     * @param res Original response
+     * @return Response
+     */
+    private static Response chunked(final Response res) {
+        return new ResponseOf(
+            () -> new RsWithHeader(
+                new RsWithoutHeader(
+                    new RsWithoutHeader(res, "Content-Length"),
+                    RsChunked.ENCODING
+                ),
+                RsChunked.ENCODING,
+                "chunked"
+            ).head(),
+            () -> new ChunkingInputStream(res.body())
+        );
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.util.zip.Deflater;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.Response;
+
+/**
+ * Response compressed with GZIP on the fly.
+ *
+ * <p>Unlike {@link RsGzip}, which compresses the entire body in memory
+ * to report its {@code Content-Length}, this response compresses the
+ * body while it's sent and sends it in chunks, see {@link RsChunked}.
+ * For example, compress with the best speed:
+ *
+ * <pre> new RsCompressed(response, Deflater.BEST_SPEED)</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @see org.takes.tk.TkGzip
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public final class RsCompressed extends RsWrap {
+
+    /**
+     * Ctor.
+     * @param res Original response
+     */
+    public RsCompressed(final Response res) {
+        this(res, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Ctor.
+     * @param res Original response
+     * @param level Compression level, from 0 to 9, or -1 for default
+     */
+    public RsCompressed(final Response res, final int level) {
+        super(
+            new RsChunked(
+                new ResponseOf(
+                    () -> new RsWithHeaders(
+                        res, "Content-Encoding: gzip", "Vary: Accept-Encoding"
+                    ).head(),
+                    () -> new GzipInputStream(res.body(), level)
+                )
+            )
+        );
+    }
+}
@@ -37,6 +37,10 @@ import org.takes.Response;
 /**
  * Response compressed with GZIP, according to RFC 1952.
  *
+ * <p>The entire body is compressed in memory, to report its
+ * {@code Content-Length}. Use {@link RsCompressed} to compress it on
+ * the fly, while it's sent.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.10
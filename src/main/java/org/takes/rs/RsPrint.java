@@ -23,11 +23,15 @@
  */
 package org.takes.rs;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.cactoos.Bytes;
 import org.cactoos.Text;
-import org.cactoos.bytes.BytesOf;
 import org.cactoos.text.Joined;
 import org.cactoos.text.Sticky;
 import org.cactoos.text.TextOf;
@@ -36,6 +40,14 @@ import org.takes.Response;
 /**
  * Response decorator that can print an entire response in HTTP format.
  *
+ * <p>Method {@link #print(OutputStream)} writes the head and the body
+ * to the output as bytes, without making strings of them: head lines
+ * are encoded into a buffer, which every thread reuses, and the body is
+ * copied through the same buffer byte for byte. Bodies, which write
+ * themselves, see {@link PushInputStream} and {@link DomInputStream},
+ * write straight to the output. Methods {@link #asString()} and
+ * {@link #asBytes()} are convenient in tests.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -44,6 +56,13 @@ import org.takes.Response;
 @EqualsAndHashCode(callSuper = true)
 public final class RsPrint extends RsWrap implements Text, Bytes {
 
+    /**
+     * Buffers of threads.
+     */
+    private static final ThreadLocal<byte[]> BUFFER =
+        // @checkstyle MagicNumber (1 line)
+        ThreadLocal.withInitial(() -> new byte[8192]);
+
     /**
      * Head print representation.
      */
@@ -74,7 +93,127 @@ public final class RsPrint extends RsWrap implements Text, Bytes {
     }
 
     @Override
-    public byte[] asBytes() throws Exception {
-        return new BytesOf(this.asString()).asBytes();
+    public byte[] asBytes() throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        this.print(baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Print it all.
+     * @param output Output stream, which stays open
+     * @throws IOException If fails
+     */
+    public void print(final OutputStream output) throws IOException {
+        this.printHead(output);
+        this.printBody(output);
+    }
+
+    /**
+     * Print the head, with an empty line after it.
+     * @param output Output stream, which stays open
+     * @throws IOException If fails
+     */
+    public void printHead(final OutputStream output) throws IOException {
+        final byte[] buf = RsPrint.BUFFER.get();
+        RsPrint.BUFFER.remove();
+        try {
+            RsPrint.printHead(this.head(), output, buf);
+        } finally {
+            RsPrint.BUFFER.set(buf);
+        }
+    }
+
+    /**
+     * Print the body and close it.
+     * @param output Output stream, which stays open
+     * @throws IOException If fails
+     */
+    public void printBody(final OutputStream output) throws IOException {
+        try (InputStream input = this.body()) {
+            if (input instanceof PushInputStream) {
+                ((PushInputStream) input).writeTo(output);
+            } else if (input instanceof DomInputStream) {
+                ((DomInputStream) input).writeTo(output);
+            } else {
+                final byte[] buf = RsPrint.BUFFER.get();
+                RsPrint.BUFFER.remove();
+                try {
+                    while (true) {
+                        final int len = input.read(buf);
+                        if (len < 0) {
+                            break;
+                        }
+                        output.write(buf, 0, len);
+                    }
+                } finally {
+                    RsPrint.BUFFER.set(buf);
+                }
+            }
+        }
+    }
+
+    /**
+     * Print the head lines through the buffer.
+     * @param lines Lines of the head
+     * @param output Output stream
+     * @param buf Buffer
+     * @throws IOException If fails
+     */
+    private static void printHead(final Iterable<String> lines,
+        final OutputStream output, final byte[] buf) throws IOException {
+        int pos = 0;
+        for (final String line : lines) {
+            final int len = line.length() + 2;
+            final boolean direct = len > buf.length || !RsPrint.ascii(line);
+            if (direct || len > buf.length - pos) {
+                output.write(buf, 0, pos);
+                pos = 0;
+            }
+            if (direct) {
+                output.write(line.getBytes(StandardCharsets.UTF_8));
+            } else {
+                for (int idx = 0; idx < len - 2; ++idx) {
+                    buf[pos] = (byte) line.charAt(idx);
+                    ++pos;
+                }
+            }
+            pos = RsPrint.eol(buf, pos);
+        }
+        if (pos + 2 > buf.length) {
+            output.write(buf, 0, pos);
+            pos = 0;
+        }
+        pos = RsPrint.eol(buf, pos);
+        output.write(buf, 0, pos);
+    }
+
+    /**
+     * Put the end of line into the buffer.
+     * @param buf Buffer
+     * @param pos Position in the buffer, with two bytes available
+     * @return Next position
+     */
+    private static int eol(final byte[] buf, final int pos) {
+        buf[pos] = '\r';
+        buf[pos + 1] = '\n';
+        return pos + 2;
+    }
+
+    /**
+     * Whether the line is in US-ASCII.
+     * @param line Line
+     * @return TRUE if so
+     */
+    private static boolean ascii(final String line) {
+        boolean ascii = true;
+        for (int idx = 0; idx < line.length(); ++idx) {
+            // @checkstyle MagicNumber (1 line)
+            if (line.charAt(idx) > 0x7f) {
+                ascii = false;
+                break;
+            }
+        }
+        return ascii;
     }
 }
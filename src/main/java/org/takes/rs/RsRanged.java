@@ -0,0 +1,431 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.cactoos.BiFunc;
+import org.cactoos.Scalar;
+import org.cactoos.scalar.IoChecked;
+import org.cactoos.scalar.Sticky;
+import org.cactoos.scalar.Unchecked;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqMethod;
+
+/**
+ * Response with byte ranges of its body, according to RFC 7233.
+ *
+ * <p>The body of the response is a resource of known size, which can be
+ * read from any position. If the request is a {@code GET} with a
+ * {@code Range} header, only the requested ranges are read: one range
+ * goes out as {@code 206 Partial Content} with {@code Content-Range},
+ * a few ranges as {@code multipart/byteranges}. If none of the ranges can
+ * be satisfied, the status is {@code 416 Range Not Satisfiable}. If
+ * {@code If-Range} doesn't match {@code ETag} or {@code Last-Modified}
+ * of the original response, or the header is malformed, the whole body is
+ * returned. In any case, {@code Accept-Ranges: bytes} is advertised.
+ *
+ * <p>The source is a function of the offset and the length of a range,
+ * which must return a stream of exactly these bytes, seeking straight
+ * to the offset if possible, for example:
+ *
+ * <pre> new RsRanged(
+ *   new RsWithType(new RsEmpty(), "video/mp4"), req, file.length(),
+ *   (offset, length) -> new ChannelInputStream(path, offset, length)
+ * )</pre>
+ *
+ * <p>The body of the original response is ignored.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle ClassFanOutComplexityCheck (500 lines)
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@SuppressWarnings("PMD.ExcessiveImports")
+public final class RsRanged extends RsWrap {
+
+    /**
+     * Content length header.
+     */
+    private static final String LENGTH = "Content-Length";
+
+    /**
+     * Content type header.
+     */
+    private static final String TYPE = "Content-Type";
+
+    /**
+     * Accept ranges header.
+     */
+    private static final String ACCEPT = "Accept-Ranges";
+
+    /**
+     * Unit of ranges.
+     */
+    private static final String BYTES = "bytes";
+
+    /**
+     * End of line.
+     */
+    private static final String EOL = "\r\n";
+
+    /**
+     * Pattern of a range.
+     */
+    private static final Pattern RANGE = Pattern.compile(
+        "\\s*(\\d*)\\s*-\\s*(\\d*)\\s*"
+    );
+
+    /**
+     * Maximum number of ranges in a request, more are ignored.
+     */
+    private static final int MAX = 16;
+
+    /**
+     * Ctor.
+     * @param res Original response
+     * @param req Request
+     * @param size Size of the body
+     * @param source Source of ranges of the body
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public RsRanged(final Response res, final Request req, final long size,
+        final BiFunc<Long, Long, InputStream> source) {
+        this(
+            new Sticky<>(() -> RsRanged.make(res, req, size, source))
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param res Response made
+     */
+    private RsRanged(final Scalar<Response> res) {
+        super(
+            new ResponseOf(
+                () -> new IoChecked<>(res).value().head(),
+                () -> new IoChecked<>(res).value().body()
+            )
+        );
+    }
+
+    /**
+     * Make the response.
+     * @param res Original response
+     * @param req Request
+     * @param size Size of the body
+     * @param source Source of ranges
+     * @return Response
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static Response make(final Response res, final Request req,
+        final long size, final BiFunc<Long, Long, InputStream> source)
+        throws IOException {
+        final Response base = new RsWithHeader(
+            new RsWithoutHeader(
+                new RsWithoutHeader(res, RsRanged.LENGTH), RsRanged.ACCEPT
+            ),
+            RsRanged.ACCEPT, RsRanged.BYTES
+        );
+        final List<long[]> requested = RsRanged.requested(req, res);
+        final List<long[]> ranges = RsRanged.satisfiable(requested, size);
+        final Response result;
+        if (requested.isEmpty()) {
+            result = RsRanged.slice(
+                base, size, new long[] {0L, size - 1L}, source
+            );
+        } else if (ranges.isEmpty()) {
+            result = new RsWithHeader(
+                new RsWithHeader(
+                    new RsWithStatus(
+                        new RsWithoutHeader(base, RsRanged.TYPE),
+                        // @checkstyle MagicNumber (1 line)
+                        416
+                    ),
+                    RsRanged.LENGTH, "0"
+                ),
+                "Content-Range", String.format("bytes */%d", size)
+            );
+        } else if (ranges.size() == 1) {
+            result = RsRanged.slice(
+                new RsWithHeader(
+                    new RsWithStatus(base, HttpURLConnection.HTTP_PARTIAL),
+                    "Content-Range",
+                    RsRanged.range(ranges.get(0), size)
+                ),
+                size, ranges.get(0), source
+            );
+        } else {
+            result = RsRanged.multipart(base, size, ranges, source);
+        }
+        return result;
+    }
+
+    /**
+     * Response with one slice of the body.
+     * @param res Response with the head
+     * @param size Size of the body
+     * @param range First and last byte of the range
+     * @param source Source of ranges
+     * @return Response
+     */
+    private static Response slice(final Response res, final long size,
+        final long[] range, final BiFunc<Long, Long, InputStream> source) {
+        final long length = range[1] - range[0] + 1L;
+        return new ResponseOf(
+            new RsWithHeader(res, RsRanged.LENGTH, Long.toString(length))
+                ::head,
+            () -> source.apply(range[0], length)
+        );
+    }
+
+    /**
+     * Response with a few ranges of the body, as multipart/byteranges.
+     * @param res Response with the head
+     * @param size Size of the body
+     * @param ranges Ranges
+     * @param source Source of ranges
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response multipart(final Response res, final long size,
+        final List<long[]> ranges, final BiFunc<Long, Long, InputStream> source)
+        throws IOException {
+        final String boundary = UUID.randomUUID().toString().replace("-", "");
+        final Iterator<String> types = new RsHeaders.Base(res)
+            .header(RsRanged.TYPE).iterator();
+        final String type;
+        if (types.hasNext()) {
+            type = String.format(
+                "%s: %s%s", RsRanged.TYPE, types.next(), RsRanged.EOL
+            );
+        } else {
+            type = "";
+        }
+        final List<Scalar<InputStream>> parts = new ArrayList<>(
+            ranges.size() << 1 | 1
+        );
+        long length = 0L;
+        for (final long[] range : ranges) {
+            final byte[] preamble = String.format(
+                "%s--%s%s%sContent-Range: %s%s%s",
+                RsRanged.EOL, boundary, RsRanged.EOL, type,
+                RsRanged.range(range, size), RsRanged.EOL, RsRanged.EOL
+            ).getBytes(StandardCharsets.US_ASCII);
+            final long len = range[1] - range[0] + 1L;
+            parts.add(() -> new ByteArrayInputStream(preamble));
+            parts.add(() -> source.apply(range[0], len));
+            length += (long) preamble.length + len;
+        }
+        final byte[] epilogue = String.format(
+            "%s--%s--%s", RsRanged.EOL, boundary, RsRanged.EOL
+        ).getBytes(StandardCharsets.US_ASCII);
+        parts.add(() -> new ByteArrayInputStream(epilogue));
+        length += (long) epilogue.length;
+        return new ResponseOf(
+            new RsWithHeader(
+                new RsWithHeader(
+                    new RsWithStatus(
+                        new RsWithoutHeader(res, RsRanged.TYPE),
+                        HttpURLConnection.HTTP_PARTIAL
+                    ),
+                    RsRanged.TYPE,
+                    String.format(
+                        "multipart/byteranges; boundary=%s", boundary
+                    )
+                ),
+                RsRanged.LENGTH,
+                Long.toString(length)
+            )::head,
+            () -> new SequenceInputStream(RsRanged.lazy(parts))
+        );
+    }
+
+    /**
+     * Enumeration of streams, opening them one by one.
+     * @param parts Parts to open
+     * @return Enumeration
+     */
+    private static Enumeration<InputStream> lazy(
+        final List<Scalar<InputStream>> parts) {
+        final Iterator<Scalar<InputStream>> iterator = parts.iterator();
+        return new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return new Unchecked<>(iterator.next()).value();
+            }
+        };
+    }
+
+    /**
+     * Content range of the range.
+     * @param range First and last bytes
+     * @param size Size of the body
+     * @return Text of the range
+     */
+    private static String range(final long[] range, final long size) {
+        return String.format("bytes %d-%d/%d", range[0], range[1], size);
+    }
+
+    /**
+     * Ranges requested, first and last bytes, with -1 for absent ones.
+     * @param req Request
+     * @param res Original response
+     * @return Ranges, empty if the header is absent, malformed or ignored
+     * @throws IOException If fails
+     */
+    private static List<long[]> requested(final Request req,
+        final Response res) throws IOException {
+        final RqHeaders headers = new RqHeaders.Base(req);
+        final List<String> header = headers.header("Range");
+        final List<long[]> ranges = new ArrayList<>(1);
+        if (header.size() == 1
+            && "GET".equals(new RqMethod.Base(req).method())
+            && RsRanged.matches(headers.header("If-Range"), res)) {
+            final String value = header.get(0).trim();
+            final String unit = String.format("%s=", RsRanged.BYTES);
+            if (value.toLowerCase(Locale.ENGLISH).startsWith(unit)) {
+                for (final String spec
+                    : value.substring(unit.length()).split(",")) {
+                    final Matcher matcher = RsRanged.RANGE.matcher(spec);
+                    if (!RsRanged.valid(matcher)
+                        || ranges.size() == RsRanged.MAX) {
+                        ranges.clear();
+                        break;
+                    }
+                    ranges.add(
+                        new long[] {
+                            RsRanged.number(matcher.group(1)),
+                            RsRanged.number(matcher.group(2)),
+                        }
+                    );
+                }
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Ranges which can be satisfied, with absolute first and last bytes.
+     * @param requested Ranges requested
+     * @param size Size of the body
+     * @return Ranges
+     */
+    private static List<long[]> satisfiable(final List<long[]> requested,
+        final long size) {
+        final List<long[]> ranges = new ArrayList<>(requested.size());
+        for (final long[] range : requested) {
+            if (range[0] < 0L) {
+                if (range[1] > 0L && size > 0L) {
+                    ranges.add(
+                        new long[] {Math.max(0L, size - range[1]), size - 1L}
+                    );
+                }
+            } else if (range[0] < size) {
+                long last = size - 1L;
+                if (range[1] >= 0L) {
+                    last = Math.min(range[1], last);
+                }
+                ranges.add(new long[] {range[0], last});
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Whether the If-Range validator matches the response.
+     * @param validators Values of If-Range
+     * @param res Original response
+     * @return TRUE if there is no If-Range or it matches
+     * @throws IOException If fails
+     */
+    private static boolean matches(final List<String> validators,
+        final Response res) throws IOException {
+        boolean matches = validators.isEmpty();
+        if (validators.size() == 1) {
+            final RsHeaders headers = new RsHeaders.Base(res);
+            final String validator = validators.get(0).trim();
+            matches = headers.header("ETag").contains(validator)
+                && !validator.startsWith("W/")
+                || headers.header("Last-Modified").contains(validator);
+        }
+        return matches;
+    }
+
+    /**
+     * Whether the range is well-formed.
+     * @param matcher Matcher of the range
+     * @return TRUE if there are digits and the last byte is not
+     *  before the first one
+     */
+    private static boolean valid(final Matcher matcher) {
+        return matcher.matches()
+            && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())
+            && (matcher.group(1).isEmpty() || matcher.group(2).isEmpty()
+            || RsRanged.number(matcher.group(1))
+            <= RsRanged.number(matcher.group(2)));
+    }
+
+    /**
+     * Parse the number.
+     * @param text Digits or empty text
+     * @return Number, -1 if empty, or {@link Long#MAX_VALUE} if too big
+     */
+    private static long number(final String text) {
+        long num = -1L;
+        if (!text.isEmpty()) {
+            try {
+                num = Long.parseLong(text);
+            } catch (final NumberFormatException ex) {
+                num = Long.MAX_VALUE;
+            }
+        }
+        return num;
+    }
+}
@@ -23,23 +23,35 @@
  */
 package org.takes.rs;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.AbstractMap;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
 import org.cactoos.Scalar;
 import org.cactoos.io.InputStreamOf;
 import org.cactoos.io.ReaderOf;
-import org.cactoos.io.WriterTo;
 
 /**
  * Response that converts Velocity template to text.
@@ -59,6 +71,16 @@ import org.cactoos.io.WriterTo;
  *   }
  * }</pre>
  *
+ * <p>There is one Velocity engine per template folder, for the whole
+ * process. Templates are parsed once and kept in memory, the recently
+ * used ones, by their URL or, if they are given as streams, by the hash
+ * of their content. Templates at URLs are not even read again, unless
+ * the {@code reload} flag is set, which makes them parsed again when
+ * modified, what is useful during development.
+ *
+ * <p>The text is written only when the body is read or written, see
+ * {@link PushInputStream}.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -68,6 +90,31 @@ import org.cactoos.io.WriterTo;
 @EqualsAndHashCode(callSuper = true)
 public final class RsVelocity extends RsWrap {
 
+    /**
+     * How many parsed templates to keep.
+     */
+    private static final int MAX = 512;
+
+    /**
+     * Engines, by template folders.
+     */
+    private static final ConcurrentMap<String, RuntimeInstance> ENGINES =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * Parsed templates, by their keys, in the order of access.
+     */
+    private static final Map<String, RsVelocity.Parsed> TEMPLATES =
+        new LinkedHashMap<String, RsVelocity.Parsed>(0, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, RsVelocity.Parsed> eldest) {
+                return this.size() > RsVelocity.MAX;
+            }
+        };
+
     /**
      * Ctor.
      * @param template Template
@@ -91,7 +138,23 @@ public final class RsVelocity extends RsWrap {
      */
     public RsVelocity(final URL template,
         final RsVelocity.Pair... params) throws IOException {
-        this(template.openStream(), params);
+        this(
+            ".", template,
+            () -> RsVelocity.convert(RsVelocity.asMap(params)),
+            false
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param folder Template folder
+     * @param template Template
+     * @param params Map of params
+     * @param reload Parse the template again, if it's modified
+     */
+    public RsVelocity(final String folder, final URL template,
+        final Scalar<Map<String, Object>> params, final boolean reload) {
+        this(() -> RsVelocity.parsed(folder, template, reload), params);
     }
 
     /**
@@ -133,40 +196,188 @@ public final class RsVelocity extends RsWrap {
      */
     public RsVelocity(final String folder,
         final InputStream template, final Scalar<Map<String, Object>> params) {
+        this(() -> RsVelocity.parsed(folder, template), params);
+    }
+
+    /**
+     * Ctor.
+     * @param template Parsed template
+     * @param params Map of params
+     */
+    private RsVelocity(final Scalar<Template> template,
+        final Scalar<Map<String, Object>> params) {
         super(
             new ResponseOf(
                 () -> new RsEmpty().head(),
-                () -> RsVelocity.render(folder, template, params.value())
+                () -> RsVelocity.render(template.value(), params)
             )
         );
     }
 
     /**
      * Render it.
-     * @param folder Template folder
-     * @param template Page template
+     * @param template Parsed template
      * @param params Params for velocity
      * @return Page body
+     */
+    private static InputStream render(final Template template,
+        final Scalar<Map<String, Object>> params) {
+        return new PushInputStream(
+            output -> {
+                final Writer writer = new OutputStreamWriter(
+                    output, StandardCharsets.UTF_8
+                );
+                template.merge(new VelocityContext(params.value()), writer);
+                writer.flush();
+            }
+        );
+    }
+
+    /**
+     * Parse the template from the stream, or take it from the cache.
+     * @param folder Template folder
+     * @param template Page template
+     * @return Template
      * @throws IOException If fails
      */
-    private static InputStream render(final String folder,
-        final InputStream template,
-        final Map<String, Object> params) throws IOException {
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (Writer writer = new WriterTo(baos)) {
-            final VelocityEngine engine = new VelocityEngine();
-            engine.setProperty(
-                "file.resource.loader.path",
-                folder
+    private static Template parsed(final String folder,
+        final InputStream template) throws IOException {
+        final byte[] bytes = RsVelocity.consume(template);
+        final String key;
+        try {
+            key = String.join(
+                "\n", folder,
+                Base64.getEncoder().encodeToString(
+                    MessageDigest.getInstance("SHA-256").digest(bytes)
+                )
             );
-            engine.evaluate(
-                new VelocityContext(params),
-                writer,
-                "",
-                new ReaderOf(template)
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        RsVelocity.Parsed parsed;
+        synchronized (RsVelocity.TEMPLATES) {
+            parsed = RsVelocity.TEMPLATES.get(key);
+        }
+        if (parsed == null) {
+            parsed = new RsVelocity.Parsed(
+                RsVelocity.parse(folder, bytes), 0L
             );
+            synchronized (RsVelocity.TEMPLATES) {
+                RsVelocity.TEMPLATES.put(key, parsed);
+            }
         }
-        return new ByteArrayInputStream(baos.toByteArray());
+        return parsed.template();
+    }
+
+    /**
+     * Parse the template at the URL, or take it from the cache.
+     * @param folder Template folder
+     * @param template URL of page template
+     * @param reload Parse the template again, if it's modified
+     * @return Template
+     * @throws IOException If fails
+     */
+    private static Template parsed(final String folder, final URL template,
+        final boolean reload) throws IOException {
+        final String key = String.join("\n", folder, template.toString());
+        RsVelocity.Parsed parsed;
+        synchronized (RsVelocity.TEMPLATES) {
+            parsed = RsVelocity.TEMPLATES.get(key);
+        }
+        long modified = 0L;
+        if (reload) {
+            modified = RsVelocity.modified(template);
+        }
+        if (parsed == null
+            || reload && (modified == 0L || parsed.modified() != modified)) {
+            final byte[] bytes = RsVelocity.consume(template.openStream());
+            parsed = new RsVelocity.Parsed(
+                RsVelocity.parse(folder, bytes), modified
+            );
+            synchronized (RsVelocity.TEMPLATES) {
+                RsVelocity.TEMPLATES.put(key, parsed);
+            }
+        }
+        return parsed.template();
+    }
+
+    /**
+     * When the template was modified, without keeping anything open.
+     * @param template URL of the template
+     * @return Time in milliseconds or zero, if unknown
+     * @throws IOException If fails
+     */
+    private static long modified(final URL template) throws IOException {
+        long modified = 0L;
+        if ("file".equals(template.getProtocol())) {
+            try {
+                modified = Files.getLastModifiedTime(
+                    Paths.get(template.toURI())
+                ).toMillis();
+            } catch (final URISyntaxException | IllegalArgumentException ex) {
+                modified = 0L;
+            }
+        } else {
+            final URLConnection conn = template.openConnection();
+            try {
+                modified = conn.getLastModified();
+            } finally {
+                conn.getInputStream().close();
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Consume input stream.
+     * @param input Input stream
+     * @return Bytes found
+     * @throws IOException If fails
+     */
+    private static byte[] consume(final InputStream input) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buf = new byte[4096];
+        try (InputStream stream = input) {
+            while (true) {
+                final int len = stream.read(buf);
+                if (len < 0) {
+                    break;
+                }
+                baos.write(buf, 0, len);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Parse the template.
+     * @param folder Template folder
+     * @param bytes Page template
+     * @return Template
+     * @throws IOException If fails
+     */
+    private static Template parse(final String folder, final byte[] bytes)
+        throws IOException {
+        final RuntimeInstance engine = RsVelocity.ENGINES.computeIfAbsent(
+            folder,
+            path -> {
+                final RuntimeInstance instance = new RuntimeInstance();
+                instance.setProperty("file.resource.loader.path", path);
+                instance.init();
+                return instance;
+            }
+        );
+        final Template template = new Template();
+        template.setName("");
+        template.setRuntimeServices(engine);
+        try {
+            template.setData(engine.parse(new ReaderOf(bytes), template));
+        } catch (final ParseException ex) {
+            throw new IOException(ex);
+        }
+        template.initDocument();
+        return template;
     }
 
     /**
@@ -220,4 +431,49 @@ public final class RsVelocity extends RsWrap {
         }
     }
 
+    /**
+     * Parsed template.
+     *
+     * <p>The class is immutable and thread-safe.
+     *
+     * @since 2.0
+     */
+    private static final class Parsed {
+
+        /**
+         * Template.
+         */
+        private final Template tpl;
+
+        /**
+         * When the template was modified, zero if not known.
+         */
+        private final long time;
+
+        /**
+         * Ctor.
+         * @param template Template
+         * @param modified When the template was modified
+         */
+        Parsed(final Template template, final long modified) {
+            this.tpl = template;
+            this.time = modified;
+        }
+
+        /**
+         * Template.
+         * @return Template
+         */
+        public Template template() {
+            return this.tpl;
+        }
+
+        /**
+         * When the template was modified.
+         * @return Time in milliseconds, zero if not known
+         */
+        public long modified() {
+            return this.time;
+        }
+    }
 }
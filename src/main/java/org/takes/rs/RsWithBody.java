@@ -41,6 +41,10 @@ import org.takes.Response;
  * from the {@code InputStream} obtained from the {@link Response#body()}
  * method.
  *
+ * <p>The length of a body given as a stream is what
+ * {@link InputStream#available()} says, which is not always right. When the
+ * length is not known up front, use {@link RsChunked}.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
@@ -182,6 +182,10 @@ public final class RsWithStatus extends RsWrap {
         map.put(
             HttpURLConnection.HTTP_UNSUPPORTED_TYPE, "Unsupported Media Type"
         );
+        // @checkstyle MagicNumber (1 line)
+        map.put(416, "Range Not Satisfiable");
+        // @checkstyle MagicNumber (1 line)
+        map.put(431, "Request Header Fields Too Large");
         map.put(HttpURLConnection.HTTP_INTERNAL_ERROR, "Internal Server Error");
         map.put(HttpURLConnection.HTTP_NOT_IMPLEMENTED, "Not Implemented");
         map.put(HttpURLConnection.HTTP_BAD_GATEWAY, "Bad Gateway");
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.Response;
+import org.takes.misc.Expires;
+
+/**
+ * Response decorator, with {@code ETag} and {@code Last-Modified}
+ * of a file.
+ *
+ * <p>The entity tag is made of the time of the last modification
+ * and the size of the file, in hex, so it changes whenever the file does,
+ * without reading its content.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public final class RsWithValidators extends RsWrap {
+
+    /**
+     * Ctor.
+     * @param res Original response
+     * @param modified Time of the last modification, in milliseconds
+     * @param size Size of the file
+     */
+    public RsWithValidators(final Response res, final long modified,
+        final long size) {
+        super(
+            new RsWithHeaders(
+                new RsWithoutHeader(
+                    new RsWithoutHeader(res, "ETag"), "Last-Modified"
+                ),
+                String.format("ETag: \"%x-%x\"", modified, size),
+                String.format(
+                    "Last-Modified: %s",
+                    new Expires.Date(
+                        "EEE, dd MMM yyyy HH:mm:ss z", modified
+                    ).print()
+                )
+            )
+        );
+    }
+}
@@ -26,21 +26,38 @@ package org.takes.rs;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.MalformedURLException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.URIResolver;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
-import org.cactoos.io.InputStreamOf;
 import org.cactoos.io.ReaderOf;
-import org.cactoos.io.WriterTo;
 import org.takes.Response;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
 
 /**
  * Response that converts XML into HTML using attached XSL stylesheet.
@@ -75,6 +92,25 @@ import org.takes.Response;
  * Saxon as a default XSL transformer. All others, including Apache
  * Xalan, won't work correctly in most cases.</p>
  *
+ * <p>Stylesheets are compiled once and kept in memory for the whole
+ * process, by the system ID of the source the resolver returns for them;
+ * up to 512 of them, the least recently used are evicted first.
+ * Stylesheets without system ID are compiled every time. The system ID
+ * is also remembered for the href and the resolver, so that the next
+ * time the same resolver isn't even asked, and the stylesheet isn't
+ * opened: the href is found in the {@code xml-stylesheet} instruction
+ * without parsing the whole document, and only a {@link Transformer} is
+ * made. Use the {@code reload} flag during development to compile them
+ * again when their files are modified, or every time, if it's not known
+ * when they were modified.
+ *
+ * <p>The stylesheet is compiled when the body is requested, before
+ * the head is printed, see {@link org.takes.http.BkBasic}, but the
+ * transformation runs while the body is printed. Thus, an error of the
+ * transformation itself, for example {@code xsl:message} with
+ * {@code terminate="yes"}, comes after the head with {@code 200 OK} is
+ * sent, and only breaks the connection.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -85,12 +121,55 @@ import org.takes.Response;
 @EqualsAndHashCode(callSuper = true)
 public final class RsXslt extends RsWrap {
 
+    /**
+     * Max number of compiled stylesheets to keep.
+     */
+    private static final int MAX = 512;
+
+    /**
+     * Compiled stylesheets, by system IDs, in the order of access.
+     */
+    private static final Map<String, RsXslt.Compiled> TEMPLATES =
+        RsXslt.lru();
+
+    /**
+     * System IDs of stylesheets by their hrefs and bases, for each
+     * resolver, guarded by {@link #TEMPLATES}.
+     */
+    private static final Map<URIResolver, Map<String, String>> IDS =
+        new WeakHashMap<>(0);
+
+    /**
+     * Default resolver, the same for all responses.
+     */
+    private static final URIResolver CLASSPATH = new RsXslt.InClasspath();
+
+    /**
+     * Stylesheet instruction in the prolog of XML.
+     */
+    private static final Pattern INSTRUCTION = Pattern.compile(
+        "<\\?xml-stylesheet\\s(.*?)\\?>", Pattern.DOTALL
+    );
+
+    /**
+     * Href in the stylesheet instruction.
+     */
+    private static final Pattern HREF = Pattern.compile(
+        "href\\s*=\\s*(['\"])([^'\"&<]*)\\1"
+    );
+
+    /**
+     * Transformer factories of threads.
+     */
+    private static final ThreadLocal<TransformerFactory> FACTORY =
+        ThreadLocal.withInitial(TransformerFactory::newInstance);
+
     /**
      * Ctor.
      * @param rsp Original response
      */
     public RsXslt(final Response rsp) {
-        this(rsp, new RsXslt.InClasspath());
+        this(rsp, RsXslt.CLASSPATH);
     }
 
     /**
@@ -99,10 +178,21 @@ public final class RsXslt extends RsWrap {
      * @param resolver URI resolver
      */
     public RsXslt(final Response rsp, final URIResolver resolver) {
+        this(rsp, resolver, false);
+    }
+
+    /**
+     * Ctor.
+     * @param rsp Original response
+     * @param resolver URI resolver
+     * @param reload Compile the stylesheet again, if it's modified
+     */
+    public RsXslt(final Response rsp, final URIResolver resolver,
+        final boolean reload) {
         super(
             new ResponseOf(
                 rsp::head,
-                () -> RsXslt.transform(rsp.body(), resolver)
+                () -> RsXslt.transform(rsp.body(), resolver, reload)
             )
         );
     }
@@ -111,15 +201,14 @@ public final class RsXslt extends RsWrap {
      * Build body.
      * @param origin Original body
      * @param resolver Resolver
+     * @param reload Compile the stylesheet again, if it's modified
      * @return Body
      * @throws IOException If fails
      */
     private static InputStream transform(final InputStream origin,
-        final URIResolver resolver) throws IOException {
+        final URIResolver resolver, final boolean reload) throws IOException {
         try {
-            final TransformerFactory factory = TransformerFactory.newInstance();
-            factory.setURIResolver(resolver);
-            return RsXslt.transform(factory, origin);
+            return RsXslt.render(origin, resolver, reload);
         } catch (final TransformerException ex) {
             throw new IOException(ex);
         }
@@ -127,33 +216,174 @@ public final class RsXslt extends RsWrap {
 
     /**
      * Transform XML into HTML.
-     * @param factory Transformer factory
+     *
+     * <p>The DOM of {@link DomInputStream} is transformed as is, other
+     * XML is read into memory first. The HTML is written only when the
+     * body is read or written, see {@link PushInputStream}.
      * @param xml XML page to be transformed.
+     * @param resolver Resolver
+     * @param reload Compile the stylesheet again, if it's modified
      * @return Resulting HTML page.
      * @throws TransformerException If fails
      */
-    private static InputStream transform(final TransformerFactory factory,
-        final InputStream xml) throws TransformerException {
+    private static InputStream render(final InputStream xml,
+        final URIResolver resolver, final boolean reload)
+        throws TransformerException {
+        final Node node;
         final byte[] input;
         try {
-            input = RsXslt.consume(xml);
+            if (xml instanceof DomInputStream) {
+                node = ((DomInputStream) xml).node();
+                input = new byte[0];
+                xml.close();
+            } else {
+                node = null;
+                input = RsXslt.consume(xml);
+            }
         } catch (final IOException ex) {
             throw new IllegalStateException(ex);
         }
-        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        final Source xsl = RsXslt.stylesheet(
-            factory,
-            new StreamSource(new ReaderOf(input))
+        final TransformerFactory factory = RsXslt.FACTORY.get();
+        final RsXslt.Located located = new RsXslt.Located();
+        if (!located.scan(node, input)) {
+            factory.setURIResolver(located);
+            RsXslt.stylesheet(factory, RsXslt.source(node, input));
+        }
+        final Transformer tnfr = RsXslt.compiled(
+            factory, resolver, located, reload
+        ).templates().newTransformer();
+        tnfr.setURIResolver(resolver);
+        return new PushInputStream(
+            output -> {
+                final Writer writer = new OutputStreamWriter(
+                    output, StandardCharsets.UTF_8
+                );
+                tnfr.transform(
+                    RsXslt.source(node, input), new StreamResult(writer)
+                );
+                writer.flush();
+            }
         );
-        RsXslt.transformer(factory, xsl).transform(
-            new StreamSource(
-                new ReaderOf(input)
-            ),
-            new StreamResult(
-                new WriterTo(baos)
-            )
+    }
+
+    /**
+     * Find the compiled stylesheet, or compile it.
+     *
+     * <p>The resolver is asked for the stylesheet only if its system ID
+     * is not known for the href yet, or the stylesheet is not compiled.
+     * @param factory Transformer factory
+     * @param resolver Resolver
+     * @param located Href and base of the stylesheet
+     * @param reload Compile the stylesheet again, if it's modified
+     * @return Compiled stylesheet
+     * @throws TransformerException If fails
+     */
+    private static RsXslt.Compiled compiled(final TransformerFactory factory,
+        final URIResolver resolver, final RsXslt.Located located,
+        final boolean reload) throws TransformerException {
+        final String ref = String.join(
+            "\n", located.href(), String.valueOf(located.base())
         );
-        return new InputStreamOf(baos.toByteArray());
+        RsXslt.Compiled compiled = null;
+        synchronized (RsXslt.TEMPLATES) {
+            final String known = RsXslt.ids(resolver).get(ref);
+            if (known != null) {
+                compiled = RsXslt.TEMPLATES.get(known);
+                if (compiled != null && reload && compiled.stale(known)) {
+                    compiled = null;
+                }
+            }
+        }
+        if (compiled == null) {
+            final Source xsl = resolver.resolve(
+                located.href(), located.base()
+            );
+            final String key = xsl.getSystemId();
+            if (key != null) {
+                synchronized (RsXslt.TEMPLATES) {
+                    compiled = RsXslt.TEMPLATES.get(key);
+                }
+            }
+            if (compiled == null || reload && compiled.stale(key)) {
+                factory.setURIResolver(resolver);
+                compiled = new RsXslt.Compiled(
+                    RsXslt.templates(factory, xsl), RsXslt.modified(key)
+                );
+            } else {
+                RsXslt.close(xsl);
+            }
+            if (key != null) {
+                synchronized (RsXslt.TEMPLATES) {
+                    RsXslt.TEMPLATES.put(key, compiled);
+                    RsXslt.ids(resolver).put(ref, key);
+                }
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * System IDs of stylesheets the resolver returned, by their hrefs and
+     * bases. Must be called under the lock of {@link #TEMPLATES}.
+     * @param resolver Resolver
+     * @return System IDs
+     */
+    private static Map<String, String> ids(final URIResolver resolver) {
+        return RsXslt.IDS.computeIfAbsent(resolver, key -> RsXslt.lru());
+    }
+
+    /**
+     * Map of limited size, which evicts the least recently used entries.
+     * @param <V> Type of values
+     * @return Map
+     */
+    private static <V> Map<String, V> lru() {
+        return new LinkedHashMap<String, V>(0, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, V> eldest) {
+                return this.size() > RsXslt.MAX;
+            }
+        };
+    }
+
+    /**
+     * Source of XML.
+     * @param node DOM node or NULL
+     * @param input XML, if there is no DOM node
+     * @return Source
+     */
+    private static Source source(final Node node, final byte[] input) {
+        final Source source;
+        if (node == null) {
+            source = new StreamSource(new ReaderOf(input));
+        } else {
+            source = new DOMSource(node);
+        }
+        return source;
+    }
+
+    /**
+     * Close the streams of the source, which is not needed.
+     * @param source Source
+     */
+    private static void close(final Source source) {
+        if (source instanceof StreamSource) {
+            final InputStream stream = ((StreamSource) source).getInputStream();
+            final Reader reader = ((StreamSource) source).getReader();
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+                if (reader != null) {
+                    reader.close();
+                }
+            } catch (final IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
     }
 
     /**
@@ -202,62 +432,246 @@ public final class RsXslt extends RsWrap {
     }
 
     /**
-     * Make a transformer from this stylesheet.
+     * Compile this stylesheet.
      * @param factory Transformer factory
      * @param stylesheet The stylesheet
-     * @return Transformer
+     * @return Templates
      * @throws TransformerConfigurationException If fails
      */
-    private static Transformer transformer(final TransformerFactory factory,
+    private static Templates templates(final TransformerFactory factory,
         final Source stylesheet) throws TransformerConfigurationException {
-        final Transformer tnfr = factory.newTransformer(stylesheet);
-        if (tnfr == null) {
+        final Templates templates = factory.newTemplates(stylesheet);
+        if (templates == null) {
             throw new TransformerConfigurationException(
                 String.format(
-                    "%s failed to create new XSL transformer for '%s'",
+                    "%s failed to compile XSL stylesheet '%s'",
                     factory.getClass(),
                     stylesheet.getSystemId()
                 )
             );
         }
-        return tnfr;
+        return templates;
+    }
+
+    /**
+     * When the stylesheet was modified, if it's in a file, in classpath
+     * or at an absolute URL.
+     * @param uri System ID of the stylesheet or NULL
+     * @return Time in milliseconds, zero if not known
+     */
+    private static long modified(final String uri) {
+        long modified = 0L;
+        try {
+            final URL url = RsXslt.url(uri);
+            if (url != null && "file".equals(url.getProtocol())) {
+                modified = Files.getLastModifiedTime(
+                    Paths.get(url.toURI())
+                ).toMillis();
+            } else if (url != null) {
+                final URLConnection conn = url.openConnection();
+                try {
+                    modified = conn.getLastModified();
+                } finally {
+                    conn.getInputStream().close();
+                }
+            }
+        } catch (final IOException | IllegalArgumentException
+            | URISyntaxException ex) {
+            modified = 0L;
+        }
+        return modified;
+    }
+
+    /**
+     * URL of the stylesheet.
+     * @param uri System ID of the stylesheet or NULL
+     * @return URL or NULL, if not found
+     * @throws MalformedURLException If the URL is invalid
+     */
+    private static URL url(final String uri) throws MalformedURLException {
+        URL url = null;
+        if (uri != null) {
+            final URI location = URI.create(uri);
+            if (location.isAbsolute()) {
+                url = location.toURL();
+            } else {
+                url = RsXslt.class.getResource(location.getPath());
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Compiled stylesheet.
+     * @since 2.0
+     */
+    private static final class Compiled {
+
+        /**
+         * Templates.
+         */
+        private final Templates tpls;
+
+        /**
+         * When the stylesheet was modified, zero if not known.
+         */
+        private final long modified;
+
+        /**
+         * Ctor.
+         * @param templates Templates
+         * @param time When the stylesheet was modified
+         */
+        Compiled(final Templates templates, final long time) {
+            this.tpls = templates;
+            this.modified = time;
+        }
+
+        /**
+         * Templates.
+         * @return Templates
+         */
+        public Templates templates() {
+            return this.tpls;
+        }
+
+        /**
+         * Whether the stylesheet was modified since it was compiled.
+         * @param uri URI of the stylesheet
+         * @return TRUE if modified or not known
+         */
+        public boolean stale(final String uri) {
+            return this.modified == 0L
+                || this.modified != RsXslt.modified(uri);
+        }
+    }
+
+    /**
+     * Resolver, which only remembers what the stylesheet is.
+     * @since 2.0
+     */
+    private static final class Located implements URIResolver {
+
+        /**
+         * Reference to the stylesheet.
+         */
+        private String ref;
+
+        /**
+         * Base URI.
+         */
+        private String location;
+
+        @Override
+        public Source resolve(final String href, final String base) {
+            this.ref = href;
+            this.location = base;
+            return new StreamSource(new ReaderOf(""));
+        }
+
+        /**
+         * Find the stylesheet instruction before the root element,
+         * without parsing the document.
+         * @param node DOM node or NULL
+         * @param input XML, if there is no DOM node
+         * @return TRUE if found
+         */
+        public boolean scan(final Node node, final byte[] input) {
+            if (node == null) {
+                int end = 0;
+                while (end < input.length - 1 && !(input[end] == '<'
+                    && Character.isLetter(input[end + 1]))) {
+                    ++end;
+                }
+                final Matcher instruction = RsXslt.INSTRUCTION.matcher(
+                    new String(input, 0, end, StandardCharsets.ISO_8859_1)
+                );
+                if (instruction.find()) {
+                    this.parse(instruction.group(1));
+                }
+            } else {
+                Node child = node.getFirstChild();
+                if (node.getNodeType() != Node.DOCUMENT_NODE) {
+                    child = null;
+                }
+                while (child != null && this.ref == null) {
+                    if (child instanceof ProcessingInstruction
+                        && "xml-stylesheet".equals(
+                            ((ProcessingInstruction) child).getTarget()
+                        )) {
+                        this.parse(((ProcessingInstruction) child).getData());
+                    }
+                    child = child.getNextSibling();
+                }
+            }
+            return this.ref != null;
+        }
+
+        /**
+         * Take the href from the data of the instruction, if it's there.
+         * @param data Pseudo-attributes of the instruction
+         */
+        private void parse(final String data) {
+            final Matcher href = RsXslt.HREF.matcher(data);
+            if (href.find()) {
+                this.ref = href.group(2);
+            }
+        }
+
+        /**
+         * Reference to the stylesheet.
+         * @return Href
+         */
+        public String href() {
+            return this.ref;
+        }
+
+        /**
+         * Base URI.
+         * @return Base or NULL
+         */
+        public String base() {
+            return this.location;
+        }
     }
 
     /**
      * Classpath URI resolver.
+     *
+     * <p>Absolute paths are found in classpath, relative ones are
+     * resolved against the base. The source has only the system ID, which
+     * is the URL of the stylesheet, the transformer opens it only if it's
+     * not compiled yet.
      * @since 0.1
      */
     private static final class InClasspath implements URIResolver {
         @Override
         public Source resolve(final String href, final String base)
             throws TransformerException {
-            final URI uri;
-            if (base == null || base.isEmpty()) {
-                uri = URI.create(href);
-            } else {
-                uri = URI.create(base).resolve(href);
-            }
-            final InputStream input;
-            if (uri.isAbsolute()) {
-                try {
-                    input = uri.toURL().openStream();
-                } catch (final IOException ex) {
-                    throw new IllegalStateException(ex);
-                }
-            } else {
-                input = this.getClass().getResourceAsStream(uri.getPath());
-                if (input == null) {
-                    throw new TransformerException(
-                        String.format(
-                            "\"%s\" not found in classpath, base=\"%s\"",
-                            href, base
-                        )
-                    );
+            final URL url;
+            try {
+                final URI uri = URI.create(href);
+                if (uri.isAbsolute()) {
+                    url = uri.toURL();
+                } else if (href.startsWith("/")
+                    || base == null || base.isEmpty()) {
+                    url = this.getClass().getResource(uri.getPath());
+                } else {
+                    url = new URL(new URL(base), href);
                 }
+            } catch (final MalformedURLException
+                | IllegalArgumentException ex) {
+                throw new TransformerException(ex);
             }
-            return new StreamSource(
-                new ReaderOf(input)
-            );
+            if (url == null) {
+                throw new TransformerException(
+                    String.format(
+                        "\"%s\" not found in classpath, base=\"%s\"",
+                        href, base
+                    )
+                );
+            }
+            return new StreamSource(url.toString());
         }
     }
 
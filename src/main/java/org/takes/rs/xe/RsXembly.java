@@ -23,8 +23,6 @@
  */
 package org.takes.rs.xe;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
@@ -37,10 +35,9 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
-import org.cactoos.io.WriterTo;
+import org.takes.rs.DomInputStream;
 import org.takes.rs.ResponseOf;
 import org.takes.rs.RsEmpty;
 import org.takes.rs.RsWithStatus;
@@ -124,6 +121,9 @@ public final class RsXembly extends RsWrap {
 
     /**
      * Render source as XML.
+     *
+     * <p>The XML is printed only when the body is read or written, and
+     * {@link org.takes.rs.RsXslt} transforms its DOM without printing.
      * @param dom DOM node to build upon
      * @param src Source
      * @return XML
@@ -132,20 +132,9 @@ public final class RsXembly extends RsWrap {
     private static InputStream render(final Node dom,
         final XeSource src) throws IOException {
         final Node copy = cloneNode(dom);
-        final ByteArrayOutputStream baos =
-            new ByteArrayOutputStream();
-        final Node node = new Xembler(src.toXembly()).applyQuietly(copy);
-        try {
-            TransformerFactory.newInstance().newTransformer().transform(
-                new DOMSource(node),
-                new StreamResult(
-                    new WriterTo(baos)
-                )
-            );
-        } catch (final TransformerException ex) {
-            throw new IllegalStateException(ex);
-        }
-        return new ByteArrayInputStream(baos.toByteArray());
+        return new DomInputStream(
+            new Xembler(src.toXembly()).applyQuietly(copy)
+        );
     }
 
     /**
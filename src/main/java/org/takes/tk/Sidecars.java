@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.takes.Request;
+import org.takes.rq.RqHeaders;
+
+/**
+ * Encodings of precompressed files, which lie next to the originals.
+ *
+ * <p>For example, {@code style.css.gz} is {@code style.css} compressed
+ * with GZIP, and {@code style.css.br} is the same file compressed with
+ * Brotli. {@link TkFiles} and {@link TkClasspath} serve them, instead of
+ * the originals, to clients which accept these encodings.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+final class Sidecars {
+
+    /**
+     * Suffixes of files, by encodings.
+     */
+    private static final Map<String, String> SUFFIXES = Sidecars.suffixes();
+
+    /**
+     * Encodings, in lower case, in the order of preference.
+     */
+    private final List<String> encodings;
+
+    /**
+     * Ctor.
+     * @param encs Encodings, in the order of preference
+     */
+    Sidecars(final String... encs) {
+        this.encodings = new ArrayList<>(encs.length);
+        for (final String enc : encs) {
+            this.encodings.add(enc.trim().toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    /**
+     * Encodings, which the client accepts, in the order of preference.
+     * @param req Request
+     * @return Encodings
+     * @throws IOException If fails
+     */
+    public List<String> accepted(final Request req) throws IOException {
+        final Map<String, Double> quality = new HashMap<>(0);
+        for (final String value
+            : new RqHeaders.Base(req).header("Accept-Encoding")) {
+            for (final String item : value.split(",")) {
+                final String[] parts = item.split(";");
+                double qvalue = 1.0d;
+                for (int idx = 1; idx < parts.length; ++idx) {
+                    final String param = parts[idx].trim();
+                    if (param.startsWith("q=")) {
+                        qvalue = Sidecars.number(param.substring(2));
+                    }
+                }
+                quality.put(
+                    parts[0].trim().toLowerCase(Locale.ENGLISH), qvalue
+                );
+            }
+        }
+        final List<String> accepted = new LinkedList<>();
+        for (final String enc : this.encodings) {
+            if (quality.getOrDefault(enc, quality.getOrDefault("*", 0.0d))
+                > 0.0d) {
+                accepted.add(enc);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Headers of the response.
+     * @param enc Encoding of the file, empty for the original
+     * @return Headers
+     */
+    public List<String> headers(final String enc) {
+        final List<String> headers = new LinkedList<>();
+        if (!this.encodings.isEmpty()) {
+            headers.add("Vary: Accept-Encoding");
+        }
+        if (!enc.isEmpty()) {
+            headers.add(String.format("Content-Encoding: %s", enc));
+        }
+        return headers;
+    }
+
+    /**
+     * Suffix of the file with this encoding.
+     * @param enc Encoding
+     * @return Suffix, like {@code .gz}
+     */
+    public static String suffix(final String enc) {
+        return Sidecars.SUFFIXES.getOrDefault(enc, String.format(".%s", enc));
+    }
+
+    /**
+     * Make suffixes of files, by encodings.
+     * @return Suffixes
+     */
+    private static Map<String, String> suffixes() {
+        final Map<String, String> map = new HashMap<>(0);
+        map.put("gzip", ".gz");
+        map.put("br", ".br");
+        map.put("zstd", ".zst");
+        return map;
+    }
+
+    /**
+     * Parse quality value.
+     * @param text Text
+     * @return Value, zero if it's broken
+     */
+    private static double number(final String text) {
+        double num;
+        try {
+            num = Double.parseDouble(text.trim());
+        } catch (final NumberFormatException ex) {
+            num = 0.0d;
+        }
+        return num;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.takes.Response;
+import org.takes.rq.RqHeaders;
+import org.takes.rs.ResponseOf;
+
+/**
+ * Response read into memory, which can be replayed many times.
+ *
+ * <p>It's shared by {@link TkCache}, {@link TkCoalesced} and
+ * {@link TkConditional}, together with the key, which identifies
+ * the requests with the same response.
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+final class Stored {
+
+    /**
+     * Head.
+     */
+    private final List<String> head;
+
+    /**
+     * Body.
+     */
+    private final byte[] body;
+
+    /**
+     * Ctor.
+     * @param res Response to read
+     * @throws IOException If fails
+     */
+    Stored(final Response res) throws IOException {
+        this(Stored.head(res), Stored.read(res.body()));
+    }
+
+    /**
+     * Ctor.
+     * @param lines Head
+     * @param bytes Body
+     */
+    Stored(final List<String> lines, final byte[] bytes) {
+        this.head = lines;
+        this.body = bytes;
+    }
+
+    /**
+     * Make the response.
+     * @return Response
+     */
+    public Response response() {
+        return new ResponseOf(
+            () -> this.head, () -> new ByteArrayInputStream(this.body)
+        );
+    }
+
+    /**
+     * Size of the head and the body, roughly.
+     * @return Size in bytes
+     */
+    public long size() {
+        long total = (long) this.body.length;
+        for (final String line : this.head) {
+            total += (long) line.length() + 2L;
+        }
+        return total;
+    }
+
+    /**
+     * Read the head of the response.
+     * @param res Response
+     * @return Lines of the head
+     * @throws IOException If fails
+     */
+    public static List<String> head(final Response res) throws IOException {
+        final List<String> lines = new ArrayList<>(0);
+        for (final String line : res.head()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Read the body and close it.
+     * @param body Body
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    public static byte[] read(final InputStream body) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buf = new byte[8192];
+        try (InputStream input = body) {
+            while (true) {
+                final int len = input.read(buf);
+                if (len < 0) {
+                    break;
+                }
+                baos.write(buf, 0, len);
+            }
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Read the body, but no more than the given number of bytes, and
+     * leave it open.
+     * @param body Body
+     * @param max Maximum number of bytes to read
+     * @return Bytes read, all of the body if there are less than max
+     * @throws IOException If fails
+     */
+    public static byte[] read(final InputStream body, final int max)
+        throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buf = new byte[8192];
+        int left = max;
+        while (left > 0) {
+            final int len = body.read(buf, 0, Math.min(left, buf.length));
+            if (len < 0) {
+                break;
+            }
+            baos.write(buf, 0, len);
+            left -= len;
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Names of the headers, trimmed and in lower case.
+     * @param headers Names of the headers
+     * @return Names
+     */
+    public static List<String> names(final String... headers) {
+        final List<String> names = new ArrayList<>(headers.length);
+        for (final String header : headers) {
+            names.add(header.trim().toLowerCase(Locale.ENGLISH));
+        }
+        return names;
+    }
+
+    /**
+     * Key of the request: its request line, with the URI and the version
+     * of HTTP, {@code Host} and the values of the headers the response
+     * may vary by.
+     *
+     * <p>The version is in the key, since responses, like chunked
+     * or compressed ones, may differ for HTTP/1.0 and HTTP/1.1.
+     * @param headers Headers of the request
+     * @param line Request line
+     * @param vary Names of the headers the response may vary by
+     * @return Key
+     * @throws IOException If fails
+     */
+    public static String key(final RqHeaders headers, final String line,
+        final Iterable<String> vary) throws IOException {
+        final StringBuilder key = new StringBuilder(line.trim());
+        key.append('\n').append(String.join(",", headers.header("Host")));
+        for (final String name : vary) {
+            key.append('\n').append(String.join(",", headers.header(name)));
+        }
+        return key.toString();
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqHeaders;
+import org.takes.rs.ResponseOf;
+import org.takes.rs.RsHeaders;
+
+/**
+ * Take that caches responses in memory.
+ *
+ * <p>Responses to {@code GET} requests with {@code 200 OK} status are
+ * stored, their head and body bytes, and then returned without calling
+ * the original take, until they expire. The key of a response is its
+ * request line, with the URI and the version of HTTP, the {@code Host}
+ * header, and the values of the request headers, which the response may
+ * vary by. A response which varies by other headers, or sets cookies,
+ * or says {@code no-store}, {@code no-cache} or {@code private} in its
+ * {@code Cache-Control}, is not cached.
+ * A response with malformed {@code max-age} or {@code Content-Length}
+ * is not cached either. The lifetime of a response is {@code s-maxage}
+ * or {@code max-age} from its {@code Cache-Control} or, if none,
+ * the default one.
+ *
+ * <p>Requests with {@code Authorization} or {@code Cookie} headers are
+ * likely to get personal responses, see RFC 7234, section 3.2. They are
+ * served from the cache and their responses are stored only if those
+ * responses say {@code public} in their {@code Cache-Control}.
+ *
+ * <p>The total size of the cached heads and bodies is limited by the
+ * budget; the least recently used responses are evicted when it's
+ * exceeded. Responses with {@code Content-Length} over the budget are not
+ * even read. Responses without it are read no further than the budget,
+ * and passed through if they are longer. For example, cache for a minute,
+ * within 16Mb, responses which vary by {@code Accept-Language}:
+ *
+ * <pre> new TkCache(
+ *   take, TimeUnit.MINUTES.toMillis(1L), 16L &lt;&lt; 20, "Accept-Language"
+ * )</pre>
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+public final class TkCache implements Take {
+
+    /**
+     * Directives of Cache-Control, which forbid caching.
+     */
+    private static final Pattern FORBIDDEN = Pattern.compile(
+        "(^|,)\\s*(no-store|no-cache|private)\\s*(,|=|$)"
+    );
+
+    /**
+     * Directive of Cache-Control, which allows to share responses to
+     * personal requests.
+     */
+    private static final Pattern PUBLIC = Pattern.compile(
+        "(^|,)\\s*public\\s*(,|$)"
+    );
+
+    /**
+     * Lifetime in Cache-Control.
+     */
+    private static final Pattern AGE = Pattern.compile(
+        "(^|,)\\s*(s-maxage|max-age)\\s*=\\s*\"?(\\d+)"
+    );
+
+    /**
+     * Original take.
+     */
+    private final Take origin;
+
+    /**
+     * Default lifetime of a response, in milliseconds.
+     */
+    private final long ttl;
+
+    /**
+     * Maximum total size of cached responses, in bytes.
+     */
+    private final long budget;
+
+    /**
+     * Names of request headers responses may vary by, in lower case.
+     */
+    private final List<String> vary;
+
+    /**
+     * Cached responses, in the order of access.
+     */
+    private final Map<String, TkCache.Entry> entries;
+
+    /**
+     * Total size of cached responses, guarded by the entries.
+     */
+    private long size;
+
+    /**
+     * Ctor.
+     * @param take Original take
+     */
+    public TkCache(final Take take) {
+        // @checkstyle MagicNumber (1 line)
+        this(take, TimeUnit.MINUTES.toMillis(1L), 16L << 20);
+    }
+
+    /**
+     * Ctor.
+     * @param take Original take
+     * @param msec Default lifetime of a response, in milliseconds
+     * @param bytes Maximum total size of cached responses, in bytes
+     * @param headers Names of request headers responses may vary by
+     */
+    public TkCache(final Take take, final long msec, final long bytes,
+        final String... headers) {
+        this.origin = take;
+        this.ttl = msec;
+        this.budget = bytes;
+        this.vary = Stored.names(headers);
+        this.entries = new LinkedHashMap<>(0, 0.75f, true);
+    }
+
+    @Override
+    public Response act(final Request req) throws Exception {
+        final Iterator<String> head = req.head().iterator();
+        final String first = head.next();
+        final String[] line = first.split(" ", 3);
+        final Response res;
+        if ("GET".equals(line[0]) && line.length > 1) {
+            final RqHeaders headers = new RqHeaders.Base(req);
+            final boolean personal = !headers.header("Authorization")
+                .isEmpty() || !headers.header("Cookie").isEmpty();
+            final String key = Stored.key(headers, first, this.vary);
+            TkCache.Entry entry;
+            synchronized (this.entries) {
+                entry = this.entries.get(key);
+                if (entry != null && entry.expired()) {
+                    this.entries.remove(key);
+                    this.size -= entry.size();
+                    entry = null;
+                }
+            }
+            if (entry == null || personal && !entry.shared()) {
+                res = this.store(key, this.origin.act(req), personal);
+            } else {
+                res = entry.response();
+            }
+        } else {
+            res = this.origin.act(req);
+        }
+        return res;
+    }
+
+    /**
+     * Store the response, if it can be cached.
+     * @param key Key of the request
+     * @param res Response
+     * @param personal Whether the request has Authorization or Cookie
+     * @return The same response, or a copy of it, if cached
+     * @throws IOException If fails
+     */
+    private Response store(final String key, final Response res,
+        final boolean personal) throws IOException {
+        final List<String> head = Stored.head(res);
+        final RsHeaders headers = new RsHeaders.Base(res);
+        final boolean shared = TkCache.PUBLIC.matcher(
+            TkCache.control(headers)
+        ).find();
+        long lifetime = 0L;
+        if (shared || !personal) {
+            lifetime = this.lifetime(head, headers);
+        }
+        Response result = res;
+        if (lifetime > 0L) {
+            final int cap = (int) Math.min(
+                this.budget + 1L, (long) Integer.MAX_VALUE - 8L
+            );
+            final InputStream body = res.body();
+            final byte[] bytes = Stored.read(body, cap);
+            if (bytes.length < cap) {
+                body.close();
+                final TkCache.Entry entry = new TkCache.Entry(
+                    new Stored(head, bytes),
+                    System.currentTimeMillis() + lifetime, shared
+                );
+                if (entry.size() <= this.budget) {
+                    this.put(key, entry);
+                }
+                result = entry.response();
+            } else {
+                result = new ResponseOf(
+                    () -> head,
+                    () -> new SequenceInputStream(
+                        new ByteArrayInputStream(bytes), body
+                    )
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Put the entry and evict the least recently used ones, if necessary.
+     * @param key Key
+     * @param entry Entry
+     */
+    private void put(final String key, final TkCache.Entry entry) {
+        synchronized (this.entries) {
+            final TkCache.Entry before = this.entries.put(key, entry);
+            if (before != null) {
+                this.size -= before.size();
+            }
+            this.size += entry.size();
+            final Iterator<TkCache.Entry> eldest =
+                this.entries.values().iterator();
+            while (this.size > this.budget) {
+                this.size -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * How long the response may be cached.
+     * @param head Head of the response
+     * @param headers Headers of the response
+     * @return Lifetime in milliseconds, zero if it can't be cached
+     * @throws IOException If fails
+     */
+    private long lifetime(final List<String> head, final RsHeaders headers)
+        throws IOException {
+        long lifetime = this.ttl;
+        final String control = TkCache.control(headers);
+        final Matcher age = TkCache.AGE.matcher(control);
+        final List<String> length = headers.header("Content-Length");
+        try {
+            if (age.find()) {
+                lifetime = TimeUnit.SECONDS.toMillis(
+                    Long.parseLong(age.group(3))
+                );
+            }
+            if (!length.isEmpty()
+                && Long.parseLong(length.get(0).trim()) > this.budget) {
+                lifetime = 0L;
+            }
+        } catch (final NumberFormatException ex) {
+            lifetime = 0L;
+        }
+        if (!head.get(0).startsWith("HTTP/1.1 200 ")
+            || TkCache.FORBIDDEN.matcher(control).find()
+            || !headers.header("Set-Cookie").isEmpty()) {
+            lifetime = 0L;
+        }
+        for (final String value : headers.header("Vary")) {
+            for (final String name : value.split(",")) {
+                if (!this.vary.contains(
+                    name.trim().toLowerCase(Locale.ENGLISH)
+                )) {
+                    lifetime = 0L;
+                }
+            }
+        }
+        return lifetime;
+    }
+
+    /**
+     * Directives of Cache-Control of the response, in lower case.
+     * @param headers Headers of the response
+     * @return Directives
+     * @throws IOException If fails
+     */
+    private static String control(final RsHeaders headers)
+        throws IOException {
+        return String.join(
+            ",", headers.header("Cache-Control")
+        ).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Cached response.
+     *
+     * <p>The class is immutable and thread-safe.
+     *
+     * @since 2.0
+     */
+    private static final class Entry {
+
+        /**
+         * Response in memory.
+         */
+        private final Stored stored;
+
+        /**
+         * When it expires, in milliseconds.
+         */
+        private final long expires;
+
+        /**
+         * Whether it may be served to personal requests.
+         */
+        private final boolean pub;
+
+        /**
+         * Ctor.
+         * @param res Response in memory
+         * @param time When it expires
+         * @param shared Whether it may be served to personal requests
+         */
+        Entry(final Stored res, final long time, final boolean shared) {
+            this.stored = res;
+            this.expires = time;
+            this.pub = shared;
+        }
+
+        /**
+         * Make the response.
+         * @return Response
+         */
+        public Response response() {
+            return this.stored.response();
+        }
+
+        /**
+         * Whether it may be served to requests with Authorization
+         * or Cookie.
+         * @return TRUE if its Cache-Control says public
+         */
+        public boolean shared() {
+            return this.pub;
+        }
+
+        /**
+         * Whether it's expired already.
+         * @return TRUE if expired
+         */
+        public boolean expired() {
+            return System.currentTimeMillis() >= this.expires;
+        }
+
+        /**
+         * Size of the head and the body, roughly.
+         * @return Size in bytes
+         */
+        public long size() {
+            return this.stored.size();
+        }
+    }
+}
@@ -23,9 +23,26 @@
  */
 package org.takes.tk;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.takes.HttpException;
@@ -33,7 +50,12 @@ import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
 import org.takes.rq.RqHref;
+import org.takes.rs.ChannelInputStream;
+import org.takes.rs.RsRanged;
 import org.takes.rs.RsWithBody;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWithStatus;
+import org.takes.rs.RsWithValidators;
 
 /**
  * Take reading resources from classpath.
@@ -52,9 +74,25 @@ import org.takes.rs.RsWithBody;
  * <p>If such a resource is not found, {@link org.takes.HttpException}
  * will be thrown.
  *
+ * <p>Byte ranges are supported, see {@link RsRanged}, when the size of
+ * the resource is known. Conditional requests are answered with
+ * {@code 304 Not Modified}, see {@link TkConditional}.
+ *
+ * <p>Precompressed resources next to the requested one, like
+ * {@code style.css.gz} for {@code gzip}, are served instead of it to
+ * clients which accept their encodings, see {@link TkFiles}.
+ *
+ * <p>With a budget, resources are read only once and kept in memory,
+ * along with their GZIP versions, when they are smaller, the least
+ * recently used ones within the budget. It saves lookups and inflation
+ * of resources in JAR files, for example:
+ *
+ * <pre> new TkClasspath("/static", 8L &lt;&lt; 20);</pre>
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @ToString(callSuper = true)
 @EqualsAndHashCode(callSuper = true)
@@ -84,25 +122,473 @@ public final class TkClasspath extends TkWrap {
      * @param prefix Prefix
      */
     public TkClasspath(final String prefix) {
+        this(prefix, new String[0]);
+    }
+
+    /**
+     * Ctor.
+     * @param prefix Prefix
+     * @param encodings Encodings of precompressed resources
+     * @since 2.0
+     */
+    public TkClasspath(final String prefix, final String... encodings) {
         super(
-            new Take() {
-                @Override
-                public Response act(final Request request) throws IOException {
-                    final String name = String.format(
-                        "%s%s", prefix, new RqHref.Base(request).href().path()
-                    );
-                    final InputStream input = this.getClass()
-                        .getResourceAsStream(name);
-                    if (input == null) {
-                        throw new HttpException(
-                            HttpURLConnection.HTTP_NOT_FOUND,
-                            String.format("%s not found in classpath", name)
+            new TkConditional(
+                new Take() {
+                    @Override
+                    public Response act(final Request request)
+                        throws IOException {
+                        final String name = String.format(
+                            "%s%s", prefix,
+                            new RqHref.Base(request).href().path()
+                        );
+                        final URL url = this.getClass().getResource(name);
+                        if (url == null) {
+                            throw new HttpException(
+                                HttpURLConnection.HTTP_NOT_FOUND,
+                                String.format(
+                                    "%s not found in classpath", name
+                                )
+                            );
+                        }
+                        final Sidecars sidecars = new Sidecars(encodings);
+                        URL chosen = url;
+                        String encoding = "";
+                        for (final String enc : sidecars.accepted(request)) {
+                            final URL sidecar = this.getClass().getResource(
+                                String.format(
+                                    "%s%s", name, Sidecars.suffix(enc)
+                                )
+                            );
+                            if (sidecar != null) {
+                                chosen = sidecar;
+                                encoding = enc;
+                                break;
+                            }
+                        }
+                        return TkClasspath.response(
+                            request, chosen, sidecars.headers(encoding)
                         );
                     }
-                    return new RsWithBody(input);
                 }
-            }
+            )
         );
     }
 
+    /**
+     * Ctor.
+     * @param prefix Prefix
+     * @param budget Maximum total size of resources kept in memory, in bytes
+     * @since 2.0
+     */
+    public TkClasspath(final String prefix, final long budget) {
+        super(new TkConditional(new TkClasspath.Cached(prefix, budget)));
+    }
+
+    /**
+     * Make a response with the resource.
+     * @param request Request
+     * @param url URL of the resource
+     * @param headers Headers of the response
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response response(final Request request, final URL url,
+        final Iterable<String> headers) throws IOException {
+        final TkClasspath.Stat stat = new TkClasspath.Stat(url);
+        final long size = stat.size();
+        final long modified = stat.modified();
+        final Response res;
+        if (size < 0L) {
+            res = new RsWithBody(
+                new RsWithHeaders(
+                    new RsWithStatus(HttpURLConnection.HTTP_OK), headers
+                ),
+                url.openStream()
+            );
+        } else {
+            Response base = new RsWithHeaders(
+                new RsWithStatus(HttpURLConnection.HTTP_OK), headers
+            );
+            if (modified > 0L) {
+                base = new RsWithValidators(base, modified, size);
+            }
+            res = new RsRanged(
+                base,
+                request,
+                size,
+                (offset, length) -> TkClasspath.slice(url, offset, length)
+            );
+        }
+        return res;
+    }
+
+    /**
+     * Open a slice of the resource.
+     *
+     * <p>A resource in a directory is read right from the offset, while
+     * a resource in a JAR has to be skipped to it.
+     * @param url URL of the resource
+     * @param offset Position of the first byte
+     * @param length Length of the slice
+     * @return Stream of the slice
+     * @throws IOException If fails
+     */
+    private static InputStream slice(final URL url, final long offset,
+        final long length) throws IOException {
+        Path file = null;
+        if ("file".equals(url.getProtocol())) {
+            try {
+                file = Paths.get(url.toURI());
+            } catch (final URISyntaxException ex) {
+                throw new IOException(ex);
+            }
+        }
+        final InputStream slice;
+        if (file != null && Files.isRegularFile(file)) {
+            slice = new ChannelInputStream(file, offset, length);
+        } else {
+            final InputStream input = url.openStream();
+            long left = offset;
+            while (left > 0L) {
+                final long skipped = input.skip(left);
+                if (skipped <= 0L) {
+                    break;
+                }
+                left -= skipped;
+            }
+            slice = new TkClasspath.Slice(input, length);
+        }
+        return slice;
+    }
+
+    /**
+     * Stream, which ends after the given number of bytes.
+     *
+     * @since 2.0
+     */
+    private static final class Slice extends FilterInputStream {
+
+        /**
+         * Bytes left.
+         */
+        private long left;
+
+        /**
+         * Ctor.
+         * @param input Original stream
+         * @param length Bytes to read
+         */
+        Slice(final InputStream input, final long length) {
+            super(input);
+            this.left = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int data = -1;
+            if (this.left > 0L) {
+                data = super.read();
+                --this.left;
+            }
+            return data;
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            int count = -1;
+            if (this.left > 0L) {
+                count = super.read(
+                    buf, off, (int) Math.min((long) len, this.left)
+                );
+                if (count > 0) {
+                    this.left -= (long) count;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long num) throws IOException {
+            final long skipped = super.skip(Math.min(num, this.left));
+            this.left -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min((long) super.available(), this.left);
+        }
+    }
+
+    /**
+     * Take, which keeps resources in memory.
+     *
+     * <p>The class is thread-safe.
+     *
+     * @since 2.0
+     */
+    private static final class Cached implements Take {
+
+        /**
+         * Prefix.
+         */
+        private final String prefix;
+
+        /**
+         * Maximum total size of resources in memory.
+         */
+        private final long budget;
+
+        /**
+         * Resources, by names, in the order of access.
+         */
+        private final Map<String, TkClasspath.Resource> resources;
+
+        /**
+         * Total size of resources, guarded by them.
+         */
+        private long size;
+
+        /**
+         * Ctor.
+         * @param pfx Prefix
+         * @param bytes Maximum total size of resources in memory
+         */
+        Cached(final String pfx, final long bytes) {
+            this.prefix = pfx;
+            this.budget = bytes;
+            this.resources = new LinkedHashMap<>(0, 0.75f, true);
+        }
+
+        @Override
+        public Response act(final Request request) throws IOException {
+            final String name = String.format(
+                "%s%s", this.prefix, new RqHref.Base(request).href().path()
+            );
+            TkClasspath.Resource resource;
+            synchronized (this.resources) {
+                resource = this.resources.get(name);
+            }
+            final Response response;
+            if (resource == null) {
+                final URL url = this.getClass().getResource(name);
+                if (url == null) {
+                    throw new HttpException(
+                        HttpURLConnection.HTTP_NOT_FOUND,
+                        String.format("%s not found in classpath", name)
+                    );
+                }
+                final TkClasspath.Stat stat = new TkClasspath.Stat(url);
+                if (stat.size() < 0L || stat.size() > this.budget) {
+                    response = TkClasspath.response(
+                        request, url, Collections.<String>emptyList()
+                    );
+                } else {
+                    resource = new TkClasspath.Resource(
+                        Stored.read(url.openStream()), stat.modified()
+                    );
+                    this.put(name, resource);
+                    response = resource.response(request);
+                }
+            } else {
+                response = resource.response(request);
+            }
+            return response;
+        }
+
+        /**
+         * Put the resource and evict the least recently used ones,
+         * if necessary.
+         * @param name Name of the resource
+         * @param resource Resource
+         */
+        private void put(final String name,
+            final TkClasspath.Resource resource) {
+            synchronized (this.resources) {
+                final TkClasspath.Resource before =
+                    this.resources.put(name, resource);
+                if (before != null) {
+                    this.size -= before.size();
+                }
+                this.size += resource.size();
+                final Iterator<TkClasspath.Resource> eldest =
+                    this.resources.values().iterator();
+                while (this.size > this.budget) {
+                    this.size -= eldest.next().size();
+                    eldest.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Resource in memory, with its GZIP version.
+     *
+     * <p>The class is immutable and thread-safe.
+     *
+     * @since 2.0
+     */
+    private static final class Resource {
+
+        /**
+         * Encodings of the resource.
+         */
+        private static final Sidecars GZIP = new Sidecars("gzip");
+
+        /**
+         * Original bytes.
+         */
+        private final byte[] raw;
+
+        /**
+         * Compressed bytes, empty if they are not smaller.
+         */
+        private final byte[] gzip;
+
+        /**
+         * When the resource was modified.
+         */
+        private final long modified;
+
+        /**
+         * Ctor.
+         * @param bytes Original bytes
+         * @param time When the resource was modified, zero if not known
+         * @throws IOException If fails
+         */
+        Resource(final byte[] bytes, final long time) throws IOException {
+            this.raw = bytes;
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (OutputStream output = new GZIPOutputStream(baos)) {
+                output.write(bytes);
+            }
+            if (baos.size() < bytes.length) {
+                this.gzip = baos.toByteArray();
+            } else {
+                this.gzip = new byte[0];
+            }
+            if (time > 0L) {
+                this.modified = time;
+            } else {
+                this.modified = System.currentTimeMillis();
+            }
+        }
+
+        /**
+         * Make a response for the request.
+         * @param request Request
+         * @return Response
+         * @throws IOException If fails
+         */
+        public Response response(final Request request) throws IOException {
+            final List<String> headers = new LinkedList<>();
+            final byte[] body;
+            if (this.gzip.length > 0) {
+                headers.add("Vary: Accept-Encoding");
+            }
+            if (this.gzip.length > 0
+                && !TkClasspath.Resource.GZIP.accepted(request).isEmpty()) {
+                headers.add("Content-Encoding: gzip");
+                body = this.gzip;
+            } else {
+                body = this.raw;
+            }
+            return new RsRanged(
+                new RsWithValidators(
+                    new RsWithHeaders(
+                        new RsWithStatus(HttpURLConnection.HTTP_OK), headers
+                    ),
+                    this.modified,
+                    (long) body.length
+                ),
+                request,
+                (long) body.length,
+                (offset, length) -> new ByteArrayInputStream(
+                    body, offset.intValue(), length.intValue()
+                )
+            );
+        }
+
+        /**
+         * Size of the resource in memory.
+         * @return Size in bytes
+         */
+        public long size() {
+            return (long) this.raw.length + (long) this.gzip.length;
+        }
+    }
+
+    /**
+     * Size and time of modification of the resource.
+     *
+     * <p>A resource in a directory is looked up in the file system,
+     * while the connection to a resource in a JAR is opened and closed
+     * right away, since it holds the stream of the resource otherwise.
+     *
+     * <p>The class is immutable and thread-safe.
+     *
+     * @since 2.0
+     */
+    @SuppressWarnings(
+        "PMD.ConstructorOnlyInitializesOrCallOtherConstructors"
+    )
+    private static final class Stat {
+
+        /**
+         * Size in bytes, negative if not known.
+         */
+        private final long length;
+
+        /**
+         * Time of modification in milliseconds, zero if not known.
+         */
+        private final long time;
+
+        /**
+         * Ctor.
+         * @param url URL of the resource
+         * @throws IOException If fails
+         */
+        Stat(final URL url) throws IOException {
+            Path file = null;
+            if ("file".equals(url.getProtocol())) {
+                try {
+                    file = Paths.get(url.toURI());
+                } catch (final URISyntaxException
+                    | IllegalArgumentException ex) {
+                    file = null;
+                }
+            }
+            if (file == null || !Files.isRegularFile(file)) {
+                final URLConnection conn = url.openConnection();
+                try {
+                    this.length = conn.getContentLengthLong();
+                    this.time = conn.getLastModified();
+                } finally {
+                    conn.getInputStream().close();
+                }
+            } else {
+                this.length = Files.size(file);
+                this.time = Files.getLastModifiedTime(file).toMillis();
+            }
+        }
+
+        /**
+         * Size.
+         * @return Size in bytes, negative if not known
+         */
+        public long size() {
+            return this.length;
+        }
+
+        /**
+         * Time of modification.
+         * @return Time in milliseconds, zero if not known
+         */
+        public long modified() {
+            return this.time;
+        }
+    }
 }
@@ -0,0 +1,282 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqHeaders;
+import org.takes.rs.RsHeaders;
+
+/**
+ * Take that coalesces identical concurrent requests.
+ *
+ * <p>When a few {@code GET} requests with the same URI, {@code Host} header
+ * and values of the configured headers arrive at the same time, only the
+ * first of them goes to the original take. The others wait for it to
+ * finish and get the same response: its head and body are read into
+ * memory once and replayed to all of them. If nobody is waiting,
+ * the response is returned as it is, without reading it into memory.
+ * If the original take fails, all of them fail with the same exception
+ * or error. Requests with {@code Cookie} or {@code Authorization} headers
+ * are never coalesced, since their responses are likely personal. For the
+ * same reason, if the response sets cookies or says {@code private} or
+ * {@code no-store} in {@code Cache-Control}, each waiting request goes to
+ * the original take by itself. For example, protect an expensive page
+ * which varies by {@code Accept-Language}:
+ *
+ * <pre> new TkCoalesced(take, "Accept-Language")</pre>
+ *
+ * <p>Nothing is kept after the response is built, use {@link TkCache}
+ * to reuse responses later.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @since 2.0
+ */
+public final class TkCoalesced implements Take {
+
+    /**
+     * Directives of Cache-Control, which forbid sharing the response.
+     */
+    private static final Pattern PERSONAL = Pattern.compile(
+        "(^|,)\\s*(no-store|private)\\s*(,|=|$)"
+    );
+
+    /**
+     * Original take.
+     */
+    private final Take origin;
+
+    /**
+     * Names of request headers responses may vary by, in lower case.
+     */
+    private final List<String> vary;
+
+    /**
+     * Requests in progress.
+     */
+    private final ConcurrentMap<String, TkCoalesced.Flight> flights;
+
+    /**
+     * Ctor.
+     * @param take Original take
+     * @param headers Names of request headers responses may vary by
+     */
+    public TkCoalesced(final Take take, final String... headers) {
+        this.origin = take;
+        this.vary = Stored.names(headers);
+        this.flights = new ConcurrentHashMap<>(0);
+    }
+
+    @Override
+    public Response act(final Request req) throws Exception {
+        final Iterator<String> head = req.head().iterator();
+        final String first = head.next();
+        final String[] line = first.split(" ", 3);
+        final RqHeaders headers = new RqHeaders.Base(req);
+        final Response res;
+        if ("GET".equals(line[0]) && line.length > 1
+            && headers.header("Cookie").isEmpty()
+            && headers.header("Authorization").isEmpty()) {
+            res = this.coalesce(
+                Stored.key(headers, first, this.vary), req
+            );
+        } else {
+            res = this.origin.act(req);
+        }
+        return res;
+    }
+
+    /**
+     * Make the response or wait for the one in progress.
+     * @param key Key of the request
+     * @param req Request
+     * @return Response
+     * @throws Exception If fails
+     */
+    private Response coalesce(final String key, final Request req)
+        throws Exception {
+        final TkCoalesced.Flight mine = new TkCoalesced.Flight();
+        final TkCoalesced.Flight flight = this.flights.compute(
+            key,
+            (name, other) -> {
+                final TkCoalesced.Flight joined;
+                if (other == null) {
+                    joined = mine;
+                } else {
+                    other.join();
+                    joined = other;
+                }
+                return joined;
+            }
+        );
+        final Response res;
+        if (flight.equals(mine)) {
+            res = this.lead(key, mine, req);
+        } else {
+            final Stored copy = flight.await();
+            if (copy == null) {
+                res = this.origin.act(req);
+            } else {
+                res = copy.response();
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Make the response and share it with those waiting for it.
+     *
+     * <p>The flight is removed before its waiters are counted, so that
+     * nobody can join it after that.
+     * @param key Key of the request
+     * @param flight Flight of the request
+     * @param req Request
+     * @return Response
+     * @throws Exception If fails
+     */
+    private Response lead(final String key, final TkCoalesced.Flight flight,
+        final Request req) throws Exception {
+        try {
+            Response res = this.origin.act(req);
+            this.flights.remove(key, flight);
+            Stored copy = null;
+            if (flight.joined() && TkCoalesced.shareable(res)) {
+                copy = new Stored(res);
+                res = copy.response();
+            }
+            flight.complete(copy);
+            return res;
+        // @checkstyle IllegalCatchCheck (1 line)
+        } catch (final Throwable ex) {
+            this.flights.remove(key, flight);
+            flight.fail(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Whether the response may be given to other clients.
+     * @param res Response
+     * @return TRUE if it doesn't set cookies and isn't private
+     * @throws IOException If fails
+     */
+    private static boolean shareable(final Response res) throws IOException {
+        final RsHeaders headers = new RsHeaders.Base(res);
+        return headers.header("Set-Cookie").isEmpty()
+            && !TkCoalesced.PERSONAL.matcher(
+                String.join(",", headers.header("Cache-Control"))
+                    .toLowerCase(Locale.ENGLISH)
+            ).find();
+    }
+
+    /**
+     * Request in progress, with the requests waiting for it.
+     *
+     * <p>The class is thread-safe.
+     *
+     * @since 2.0
+     */
+    private static final class Flight {
+
+        /**
+         * Copy of the response, or NULL if it can't be shared.
+         */
+        private final CompletableFuture<Stored> future;
+
+        /**
+         * How many requests wait for it.
+         */
+        private final AtomicInteger waiters;
+
+        /**
+         * Ctor.
+         */
+        Flight() {
+            this.future = new CompletableFuture<>();
+            this.waiters = new AtomicInteger();
+        }
+
+        /**
+         * Count one more request waiting.
+         */
+        public void join() {
+            this.waiters.incrementAndGet();
+        }
+
+        /**
+         * Whether anybody waits.
+         * @return TRUE if so
+         */
+        public boolean joined() {
+            return this.waiters.get() > 0;
+        }
+
+        /**
+         * Share the copy of the response.
+         * @param copy Copy or NULL, if it can't be shared
+         */
+        public void complete(final Stored copy) {
+            this.future.complete(copy);
+        }
+
+        /**
+         * Share the failure.
+         * @param error Exception or error
+         */
+        public void fail(final Throwable error) {
+            this.future.completeExceptionally(error);
+        }
+
+        /**
+         * Wait for the copy of the response.
+         * @return Copy or NULL, if it can't be shared
+         * @throws Exception If the original take failed
+         */
+        public Stored await() throws Exception {
+            try {
+                return this.future.get();
+            } catch (final ExecutionException ex) {
+                if (ex.getCause() instanceof Exception) {
+                    throw (Exception) ex.getCause();
+                }
+                if (ex.getCause() instanceof Error) {
+                    throw (Error) ex.getCause();
+                }
+                throw ex;
+            }
+        }
+    }
+}
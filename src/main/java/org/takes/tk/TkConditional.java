@@ -0,0 +1,328 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
+import org.takes.rq.RqHeaders;
+import org.takes.rq.RqMethod;
+import org.takes.rs.ResponseOf;
+import org.takes.rs.RsHeaders;
+import org.takes.rs.RsWithBody;
+import org.takes.rs.RsWithHeader;
+
+/**
+ * Take that answers conditional requests, according to RFC 7232.
+ *
+ * <p>If the response of the original take for a {@code GET} or
+ * {@code HEAD} request is {@code 200 OK} and its {@code ETag} matches
+ * {@code If-None-Match}, or, when there is no {@code If-None-Match}, its
+ * {@code Last-Modified} is not after {@code If-Modified-Since}, then
+ * {@code 304 Not Modified} is returned instead, without reading the body
+ * of the original response. An {@code If-Modified-Since}, which can't be
+ * parsed or is in the future, is ignored. Responses of {@link TkFiles} and
+ * {@link TkClasspath} have the validators, made of the size of the file
+ * and the time of its modification.
+ *
+ * <p>If the response has neither {@code ETag} nor {@code Last-Modified},
+ * its body is read through SHA-256 and the strong {@code ETag} is made
+ * of the hash. The whole body is kept in memory, since the head has to be
+ * sent before it, so this happens only if the request is conditional or
+ * the response has {@code Content-Length} of at most 64 kilobytes. Other
+ * responses, for example streams and exports of unknown length, are
+ * returned as they are, without the {@code ETag}.
+ *
+ * <pre> new TkConditional(new TkFork(...))</pre>
+ *
+ * <p>The class is immutable and thread-safe.
+ *
+ * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle ClassFanOutComplexityCheck (500 lines)
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+@SuppressWarnings("PMD.ExcessiveImports")
+public final class TkConditional extends TkWrap {
+
+    /**
+     * ETag header.
+     */
+    private static final String ETAG = "ETag";
+
+    /**
+     * Last-Modified header.
+     */
+    private static final String MODIFIED = "Last-Modified";
+
+    /**
+     * Maximum length of the body to hash for unconditional requests.
+     */
+    private static final long SMALL = 64L * 1024L;
+
+    /**
+     * Headers, which are sent with 304, in lower case.
+     */
+    private static final List<String> KEPT = Arrays.asList(
+        "cache-control", "content-location", "date", "etag", "expires",
+        "last-modified", "vary"
+    );
+
+    /**
+     * Ctor.
+     * @param take Original take
+     */
+    public TkConditional(final Take take) {
+        super(
+            new Take() {
+                @Override
+                public Response act(final Request req) throws Exception {
+                    return TkConditional.answer(req, take.act(req));
+                }
+            }
+        );
+    }
+
+    /**
+     * Answer the request.
+     * @param req Request
+     * @param res Response of the original take
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response answer(final Request req, final Response res)
+        throws IOException {
+        final String method = new RqMethod.Base(req).method();
+        Response result = res;
+        if (("GET".equals(method) || "HEAD".equals(method))
+            && res.head().iterator().next().startsWith("HTTP/1.1 200 ")) {
+            final RqHeaders rqh = new RqHeaders.Base(req);
+            RsHeaders headers = new RsHeaders.Base(res);
+            if (headers.header(TkConditional.ETAG).isEmpty()
+                && headers.header(TkConditional.MODIFIED).isEmpty()
+                && (TkConditional.conditional(rqh)
+                || TkConditional.small(headers))) {
+                result = TkConditional.hashed(res);
+                headers = new RsHeaders.Base(result);
+            }
+            if (TkConditional.unmodified(rqh, headers)) {
+                result = TkConditional.notModified(result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether the representation is not modified since the client got it.
+     * @param req Headers of the request
+     * @param res Headers of the response
+     * @return TRUE if the client has this representation already
+     * @throws IOException If fails
+     */
+    private static boolean unmodified(final RqHeaders req,
+        final RsHeaders res) throws IOException {
+        final List<String> tags = req.header("If-None-Match");
+        final boolean unmodified;
+        if (tags.isEmpty()) {
+            final Optional<ZonedDateTime> since = TkConditional.time(
+                req.header("If-Modified-Since")
+            ).filter(time -> !time.isAfter(ZonedDateTime.now()));
+            final Optional<ZonedDateTime> modified = TkConditional.time(
+                res.header(TkConditional.MODIFIED)
+            );
+            unmodified = since.isPresent() && modified.isPresent()
+                && !modified.get().isAfter(since.get());
+        } else {
+            unmodified = TkConditional.matches(
+                tags, res.header(TkConditional.ETAG)
+            );
+        }
+        return unmodified;
+    }
+
+    /**
+     * Whether the request is conditional.
+     * @param req Headers of the request
+     * @return TRUE if it has If-None-Match or If-Modified-Since
+     * @throws IOException If fails
+     */
+    private static boolean conditional(final RqHeaders req)
+        throws IOException {
+        return !req.header("If-None-Match").isEmpty()
+            || !req.header("If-Modified-Since").isEmpty();
+    }
+
+    /**
+     * Whether the body of the response is known to be small.
+     * @param res Headers of the response
+     * @return TRUE if its Content-Length is at most {@link #SMALL}
+     * @throws IOException If fails
+     */
+    private static boolean small(final RsHeaders res) throws IOException {
+        final List<String> lengths = res.header("Content-Length");
+        boolean small = false;
+        if (lengths.size() == 1) {
+            try {
+                small = Long.parseLong(lengths.get(0).trim())
+                    <= TkConditional.SMALL;
+            } catch (final NumberFormatException ex) {
+                small = false;
+            }
+        }
+        return small;
+    }
+
+    /**
+     * Whether one of the entity tags matches the ETag, weakly.
+     * @param tags Values of If-None-Match
+     * @param etags Values of ETag
+     * @return TRUE if matches
+     */
+    private static boolean matches(final List<String> tags,
+        final List<String> etags) {
+        boolean matches = false;
+        if (!etags.isEmpty()) {
+            final String etag = TkConditional.opaque(etags.get(0));
+            for (final String value : tags) {
+                for (final String tag : value.split(",")) {
+                    final String trimmed = tag.trim();
+                    if ("*".equals(trimmed)
+                        || TkConditional.opaque(trimmed).equals(etag)) {
+                        matches = true;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Entity tag without the weakness indicator.
+     * @param tag Entity tag
+     * @return Opaque tag
+     */
+    private static String opaque(final String tag) {
+        String opaque = tag.trim();
+        if (opaque.startsWith("W/")) {
+            opaque = opaque.substring(2);
+        }
+        return opaque;
+    }
+
+    /**
+     * Parse HTTP date, the first of the values of the header.
+     * @param values Values of the header
+     * @return Date, or empty, if there is none or it can't be parsed
+     */
+    private static Optional<ZonedDateTime> time(final List<String> values) {
+        Optional<ZonedDateTime> time = Optional.empty();
+        if (!values.isEmpty()) {
+            try {
+                time = Optional.of(
+                    ZonedDateTime.parse(
+                        values.get(0).trim(),
+                        DateTimeFormatter.RFC_1123_DATE_TIME
+                    )
+                );
+            } catch (final DateTimeParseException ex) {
+                time = Optional.empty();
+            }
+        }
+        return time;
+    }
+
+    /**
+     * Response with the ETag made of the hash of its body.
+     * @param res Response
+     * @return Response with the body in memory
+     * @throws IOException If fails
+     */
+    private static Response hashed(final Response res) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+        final byte[] body = Stored.read(
+            new DigestInputStream(res.body(), digest)
+        );
+        return new RsWithBody(
+            new RsWithHeader(
+                res,
+                TkConditional.ETAG,
+                String.format(
+                    "\"%s\"",
+                    Base64.getUrlEncoder().withoutPadding()
+                        .encodeToString(digest.digest())
+                )
+            ),
+            body
+        );
+    }
+
+    /**
+     * Make 304 response, with the validators and caching headers of
+     * the response, but without its body.
+     * @param res Response
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response notModified(final Response res)
+        throws IOException {
+        final List<String> head = new ArrayList<>(0);
+        head.add(
+            String.format(
+                "HTTP/1.1 %d Not Modified", HttpURLConnection.HTTP_NOT_MODIFIED
+            )
+        );
+        for (final String line : res.head()) {
+            final int colon = line.indexOf(':');
+            if (colon > 0 && TkConditional.KEPT.contains(
+                line.substring(0, colon).trim().toLowerCase(Locale.ENGLISH)
+            )) {
+                head.add(line);
+            }
+        }
+        return new ResponseOf(head, new ByteArrayInputStream(new byte[0]));
+    }
+}
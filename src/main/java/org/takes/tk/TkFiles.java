@@ -24,16 +24,20 @@
 package org.takes.tk;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.HttpURLConnection;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
-import org.cactoos.io.InputOf;
 import org.takes.HttpException;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
 import org.takes.rq.RqHref;
-import org.takes.rs.RsWithBody;
+import org.takes.rs.ChannelInputStream;
+import org.takes.rs.RsRanged;
+import org.takes.rs.RsWithHeaders;
+import org.takes.rs.RsWithStatus;
+import org.takes.rs.RsWithValidators;
 
 /**
  * Take reading resources from directory.
@@ -52,6 +56,21 @@ import org.takes.rs.RsWithBody;
  * <p>If such a resource is not found, {@link org.takes.HttpException}
  * will be thrown.
  *
+ * <p>The body of the response is a {@link ChannelInputStream}, with
+ * {@code Content-Length} equal to the size of the file, which
+ * {@link org.takes.http.BkBasic} sends to the socket without copying.
+ * Byte ranges are supported, see {@link RsRanged}, reading the file
+ * right from the requested positions. Conditional requests are answered
+ * with {@code 304 Not Modified}, see {@link TkConditional}, without
+ * opening the file.
+ *
+ * <p>Precompressed files next to the original, like {@code style.css.gz}
+ * for {@code gzip} or {@code style.css.br} for {@code br}, are served
+ * instead of it, with {@code Content-Encoding}, to clients which accept
+ * these encodings, in the order they are listed:
+ *
+ * <pre> new TkFiles("/tmp", "br", "gzip");</pre>
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.1
@@ -68,29 +87,94 @@ public final class TkFiles extends TkWrap {
         this(new File(base));
     }
 
+    /**
+     * Ctor.
+     * @param base Base directory
+     * @param encodings Encodings of precompressed files
+     * @since 2.0
+     */
+    public TkFiles(final String base, final String... encodings) {
+        this(new File(base), encodings);
+    }
+
     /**
      * Ctor.
      * @param base Base directory
      */
     public TkFiles(final File base) {
+        this(base, new String[0]);
+    }
+
+    /**
+     * Ctor.
+     * @param base Base directory
+     * @param encodings Encodings of precompressed files
+     * @since 2.0
+     */
+    public TkFiles(final File base, final String... encodings) {
         super(
-            new Take() {
-                @Override
-                public Response act(final Request request) throws Exception {
-                    final File file = new File(
-                        base, new RqHref.Base(request).href().path()
-                    );
-                    if (!file.exists()) {
-                        throw new HttpException(
-                            HttpURLConnection.HTTP_NOT_FOUND,
-                            String.format(
-                                "%s not found", file.getAbsolutePath()
-                            )
+            new TkConditional(
+                new Take() {
+                    @Override
+                    public Response act(final Request request)
+                        throws Exception {
+                        final File file = new File(
+                            base, new RqHref.Base(request).href().path()
+                        );
+                        if (!file.exists()) {
+                            throw new HttpException(
+                                HttpURLConnection.HTTP_NOT_FOUND,
+                                String.format(
+                                    "%s not found", file.getAbsolutePath()
+                                )
+                            );
+                        }
+                        return TkFiles.response(
+                            request, file, new Sidecars(encodings)
                         );
                     }
-                    return new RsWithBody(new InputOf(file).stream());
                 }
+            )
+        );
+    }
+
+    /**
+     * Make a response with the file, or with its precompressed version.
+     * @param request Request
+     * @param file The file
+     * @param sidecars Encodings of precompressed files
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response response(final Request request, final File file,
+        final Sidecars sidecars) throws IOException {
+        File chosen = file;
+        String encoding = "";
+        for (final String enc : sidecars.accepted(request)) {
+            final File sidecar = new File(
+                String.format("%s%s", file.getPath(), Sidecars.suffix(enc))
+            );
+            if (sidecar.isFile()) {
+                chosen = sidecar;
+                encoding = enc;
+                break;
             }
+        }
+        final File body = chosen;
+        return new RsRanged(
+            new RsWithValidators(
+                new RsWithHeaders(
+                    new RsWithStatus(HttpURLConnection.HTTP_OK),
+                    sidecars.headers(encoding)
+                ),
+                body.lastModified(),
+                body.length()
+            ),
+            request,
+            body.length(),
+            (offset, length) -> new ChannelInputStream(
+                body.toPath(), offset, length
+            )
         );
     }
 
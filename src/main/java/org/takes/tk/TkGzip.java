@@ -23,6 +23,13 @@
  */
 package org.takes.tk;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.takes.Request;
@@ -30,11 +37,33 @@ import org.takes.Response;
 import org.takes.Take;
 import org.takes.facets.fork.FkEncoding;
 import org.takes.facets.fork.RsFork;
+import org.takes.rq.RqMethod;
+import org.takes.rs.RsCompressed;
 import org.takes.rs.RsGzip;
+import org.takes.rs.RsHeaders;
+import org.takes.rs.RsWithHeader;
 
 /**
  * Take that compresses responses with GZIP.
  *
+ * <p>Responses are compressed on the fly and sent in chunks, see
+ * {@link RsCompressed}, only if the client accepts GZIP, the response
+ * is not encoded yet, its {@code Content-Type}, if known, is in the list
+ * of compressible types, and its {@code Content-Length}, if known, is not
+ * less than the threshold. Responses without a body, that is responses
+ * to {@code HEAD} and responses with 1xx, 204 or 304 status, and partial
+ * responses, with 206 status or {@code Content-Range}, are never
+ * compressed. A type in the list either matches exactly,
+ * or, like {@code text/*}, matches all subtypes. Clients of HTTP/1.0
+ * can't read chunks, so their responses are compressed in memory, see
+ * {@link RsGzip}. Both compressed and plain versions of such responses
+ * say {@code Vary: Accept-Encoding}. For example, compress
+ * with the best speed HTML and CSS of at least 1Kb:
+ *
+ * <pre> new TkGzip(
+ *   take, Deflater.BEST_SPEED, 1024L, "text/html", "text/css"
+ * )</pre>
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @since 0.10
@@ -43,24 +72,160 @@ import org.takes.rs.RsGzip;
 @EqualsAndHashCode(callSuper = true)
 public final class TkGzip extends TkWrap {
 
+    /**
+     * Default minimum length of a body to compress.
+     */
+    private static final long MIN = 256L;
+
+    /**
+     * Vary header of compressible responses.
+     */
+    private static final String VARY = "Vary: Accept-Encoding";
+
+    /**
+     * Default compressible types.
+     */
+    private static final String[] TYPES = {
+        "text/*",
+        "application/javascript",
+        "application/json",
+        "application/xml",
+        "application/xhtml+xml",
+        "image/svg+xml",
+    };
+
     /**
      * Ctor.
      * @param take Original take
      */
     public TkGzip(final Take take) {
+        this(take, Deflater.DEFAULT_COMPRESSION, TkGzip.MIN, TkGzip.TYPES);
+    }
+
+    /**
+     * Ctor.
+     * @param take Original take
+     * @param level Compression level, from 0 to 9, or -1 for default
+     * @param min Minimum length of a body to compress, in bytes
+     * @param types Compressible content types
+     * @since 2.0
+     */
+    public TkGzip(final Take take, final int level, final long min,
+        final String... types) {
         super(
             new Take() {
                 @Override
                 public Response act(final Request req) throws Exception {
                     final Response response = take.act(req);
-                    return new RsFork(
-                        req,
-                        new FkEncoding("gzip", new RsGzip(response)),
-                        new FkEncoding("", response)
-                    );
+                    final Response result;
+                    if (TkGzip.whole(req, response)
+                        && TkGzip.compressible(response, min, types)) {
+                        final Response zipped;
+                        if (TkGzip.legacy(req)) {
+                            zipped = new RsWithHeader(
+                                new RsGzip(response), TkGzip.VARY
+                            );
+                        } else {
+                            zipped = new RsCompressed(response, level);
+                        }
+                        result = new RsFork(
+                            req,
+                            new FkEncoding("gzip", zipped),
+                            new FkEncoding(
+                                "", new RsWithHeader(response, TkGzip.VARY)
+                            )
+                        );
+                    } else {
+                        result = response;
+                    }
+                    return result;
                 }
             }
         );
     }
 
+    /**
+     * Whether the response is worth compressing.
+     * @param res Response
+     * @param min Minimum length of a body to compress
+     * @param types Compressible content types
+     * @return TRUE if so
+     * @throws IOException If fails
+     */
+    private static boolean compressible(final Response res, final long min,
+        final String... types) throws IOException {
+        final RsHeaders headers = new RsHeaders.Base(res);
+        final List<String> length = headers.header("Content-Length");
+        final List<String> type = headers.header("Content-Type");
+        boolean longer = true;
+        if (!length.isEmpty()) {
+            try {
+                longer = Long.parseLong(length.get(0).trim()) >= min;
+            } catch (final NumberFormatException ex) {
+                longer = false;
+            }
+        }
+        return headers.header("Content-Encoding").isEmpty() && longer
+            && (type.isEmpty() || TkGzip.matches(
+                type.get(0).split(";", 2)[0].trim().toLowerCase(Locale.ENGLISH),
+                Arrays.asList(types)
+            ));
+    }
+
+    /**
+     * Whether the response has a whole body to compress.
+     *
+     * <p>Compressing a response without body would give it one, while
+     * compressing a part of the body wouldn't match its
+     * {@code Content-Range}.
+     * @param req Request
+     * @param res Response
+     * @return TRUE if it has a body, which is not a part
+     * @throws IOException If fails
+     */
+    private static boolean whole(final Request req, final Response res)
+        throws IOException {
+        final String[] status = res.head().iterator().next().split(" ", 3);
+        int code = HttpURLConnection.HTTP_OK;
+        if (status.length > 1 && status[1].matches("\\d{3}")) {
+            code = Integer.parseInt(status[1]);
+        }
+        return !RqMethod.HEAD.equals(new RqMethod.Base(req).method())
+            && code >= HttpURLConnection.HTTP_OK
+            && code != HttpURLConnection.HTTP_NO_CONTENT
+            && code != HttpURLConnection.HTTP_PARTIAL
+            && code != HttpURLConnection.HTTP_NOT_MODIFIED
+            && new RsHeaders.Base(res).header("Content-Range").isEmpty();
+    }
+
+    /**
+     * Whether the request is of HTTP/1.0, which can't read chunks.
+     * @param req Request
+     * @return TRUE if so
+     * @throws IOException If fails
+     */
+    private static boolean legacy(final Request req) throws IOException {
+        return req.head().iterator().next().trim().endsWith("HTTP/1.0");
+    }
+
+    /**
+     * Whether the content type is in the list.
+     * @param type Content type, in lower case
+     * @param types Content types, exact or with subtypes
+     * @return TRUE if so
+     */
+    private static boolean matches(final String type,
+        final Collection<String> types) {
+        boolean matches = false;
+        for (final String item : types) {
+            final String lower = item.trim().toLowerCase(Locale.ENGLISH);
+            if (lower.equals(type) || lower.endsWith("/*")
+                && type.startsWith(lower.substring(0, lower.length() - 1))) {
+                matches = true;
+                break;
+            }
+        }
+        return matches;
+    }
+
 }
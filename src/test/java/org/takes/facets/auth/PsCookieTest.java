@@ -24,10 +24,22 @@
 package org.takes.facets.auth;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.Test;
 import org.llorllale.cactoos.matchers.Assertion;
 import org.llorllale.cactoos.matchers.HasString;
+import org.takes.Request;
 import org.takes.facets.auth.codecs.CcPlain;
+import org.takes.facets.auth.codecs.Codec;
+import org.takes.rq.RqFake;
 import org.takes.rs.RsEmpty;
 import org.takes.rs.RsPrint;
 
@@ -55,4 +67,101 @@ final class PsCookieTest {
             )
         ).affirm();
     }
+
+    /**
+     * PsCookie can keep decoded identities.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsDecodedIdentities() throws Exception {
+        final AtomicInteger decoded = new AtomicInteger();
+        final Codec plain = new CcPlain();
+        final Pass pass = new PsCookie(
+            new Codec() {
+                @Override
+                public byte[] encode(final Identity idt) throws IOException {
+                    return plain.encode(idt);
+                }
+
+                @Override
+                public Identity decode(final byte[] bytes) throws IOException {
+                    decoded.incrementAndGet();
+                    return plain.decode(bytes);
+                }
+            },
+            "foo", 1L, 1
+        );
+        final Request first = new RqFake(
+            Arrays.asList("GET /", "Cookie: foo=urn%3Atest%3A1"), ""
+        );
+        pass.enter(first);
+        new Assertion<>(
+            "Must find the identity decoded",
+            pass.enter(first).get().urn(),
+            new IsEqual<>("urn:test:1")
+        ).affirm();
+        pass.enter(
+            new RqFake(
+                Arrays.asList("GET /", "Cookie: foo=urn%3Atest%3A2"), ""
+            )
+        );
+        pass.enter(first);
+        new Assertion<>(
+            "Must decode again after eviction",
+            decoded.get(),
+            // @checkstyle MagicNumber (1 line)
+            new IsEqual<>(3)
+        ).affirm();
+    }
+
+    /**
+     * PsCookie can keep identities of many cookies from many threads.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsIdentitiesConcurrently() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final Pass pass = new PsCookie(new CcPlain(), "bar", 1L, 16);
+        final int total = 8;
+        final ExecutorService service = Executors.newFixedThreadPool(total);
+        final Collection<Callable<Boolean>> tasks = new ArrayList<>(total);
+        for (int idx = 0; idx < total; ++idx) {
+            tasks.add(
+                () -> {
+                    boolean same = true;
+                    // @checkstyle MagicNumber (1 line)
+                    for (int num = 0; num < 1000; ++num) {
+                        final String urn = String.format(
+                            // @checkstyle MagicNumber (1 line)
+                            "urn:test:%d", num % 32
+                        );
+                        same &= pass.enter(
+                            new RqFake(
+                                Arrays.asList(
+                                    "GET /",
+                                    String.format(
+                                        "Cookie: bar=%s",
+                                        urn.replace(":", "%3A")
+                                    )
+                                ),
+                                ""
+                            )
+                        ).get().urn().equals(urn);
+                    }
+                    return same;
+                }
+            );
+        }
+        try {
+            for (final Future<Boolean> future : service.invokeAll(tasks)) {
+                new Assertion<>(
+                    "Must find the identity of each cookie",
+                    future.get(),
+                    new IsEqual<>(true)
+                ).affirm();
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
 }
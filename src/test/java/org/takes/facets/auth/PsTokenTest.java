@@ -0,0 +1,184 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.auth;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.json.Json;
+import javax.json.JsonReader;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.Assertion;
+import org.takes.Request;
+import org.takes.facets.auth.signatures.SiHmac;
+import org.takes.rq.RqFake;
+import org.takes.rs.RsJson;
+
+/**
+ * Test case for {@link PsToken}.
+ * @since 2.0
+ */
+final class PsTokenTest {
+
+    /**
+     * PsToken can accept the token it issued, again and again.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void acceptsIssuedToken() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final SiHmac hmac = new SiHmac("secret");
+        final Pass pass = new PsToken(
+            data -> {
+                count.incrementAndGet();
+                return hmac.sign(data);
+            },
+            SiHmac.HMAC256, 60L, 10
+        );
+        final String jwt;
+        try (JsonReader rdr = Json.createReader(
+            pass.exit(
+                new RsJson(Json.createObjectBuilder().build()),
+                new Identity.Simple("urn:test:1")
+            ).body()
+        )) {
+            jwt = rdr.readObject().getString("jwt");
+        }
+        final Request req = PsTokenTest.request(jwt);
+        pass.enter(req);
+        new Assertion<>(
+            "Must accept the token",
+            pass.enter(req).get().urn(),
+            new IsEqual<>("urn:test:1")
+        ).affirm();
+        new Assertion<>(
+            "Must verify the signature only once after issuing it",
+            count.get(),
+            new IsEqual<>(2)
+        ).affirm();
+    }
+
+    /**
+     * PsToken can reject a token with a wrong signature.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void rejectsWrongSignature() throws Exception {
+        new Assertion<>(
+            "Must reject the token",
+            new PsToken("secret").enter(
+                PsTokenTest.request(
+                    PsTokenTest.jwt("other", "{\"sub\":\"urn:test:2\"}")
+                )
+            ).has(),
+            new IsEqual<>(false)
+        ).affirm();
+    }
+
+    /**
+     * PsToken can reject an expired token.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        new Assertion<>(
+            "Must reject the expired token",
+            new PsToken("secret", 60L, 10).enter(
+                PsTokenTest.request(
+                    PsTokenTest.jwt(
+                        "secret", "{\"sub\":\"urn:test:3\",\"exp\":1}"
+                    )
+                )
+            ).has(),
+            new IsEqual<>(false)
+        ).affirm();
+    }
+
+    /**
+     * PsToken can reject a token expired by the date in its own format.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void rejectsExpiredDate() throws Exception {
+        new Assertion<>(
+            "Must reject the token expired by the date",
+            new PsToken("secret", 60L, 10).enter(
+                PsTokenTest.request(
+                    PsTokenTest.jwt(
+                        "secret",
+                        "{\"sub\":\"urn:test:4\",\"exp\":\"2000-01-01T00:00Z\"}"
+                    )
+                )
+            ).has(),
+            new IsEqual<>(false)
+        ).affirm();
+    }
+
+    /**
+     * Make a request with the token.
+     * @param jwt Token
+     * @return Request
+     */
+    private static Request request(final String jwt) {
+        return new RqFake(
+            Arrays.asList(
+                "GET /", String.format("Authorization: Bearer %s", jwt)
+            ),
+            ""
+        );
+    }
+
+    /**
+     * Make a token.
+     * @param key Key to sign with
+     * @param payload Payload
+     * @return Token
+     * @throws Exception If fails
+     */
+    private static String jwt(final String key, final String payload)
+        throws Exception {
+        final String unsigned = String.format(
+            "%s.%s",
+            new String(
+                new Token.Jose(SiHmac.HMAC256).encoded(),
+                Charset.defaultCharset()
+            ),
+            Base64.getEncoder().encodeToString(
+                payload.getBytes(Charset.defaultCharset())
+            )
+        );
+        return String.format(
+            "%s.%s",
+            unsigned,
+            new String(
+                new SiHmac(key).sign(
+                    unsigned.getBytes(Charset.defaultCharset())
+                ),
+                Charset.defaultCharset()
+            )
+        );
+    }
+}
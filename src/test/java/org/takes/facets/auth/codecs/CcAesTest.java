@@ -25,7 +25,13 @@ package org.takes.facets.auth.codecs;
 
 import java.security.SecureRandom;
 import java.security.SecureRandomSpi;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.crypto.KeyGenerator;
 import javax.crypto.spec.SecretKeySpec;
 import org.hamcrest.MatcherAssert;
@@ -138,6 +144,70 @@ import org.takes.facets.auth.Identity;
         );
     }
 
+    /**
+     * CcAes can encode and decode with different keys in one thread.
+     * @throws Exception any unexpected exception to throw
+     */
+    @Test
+    void encodesWithDifferentKeys() throws Exception {
+        final Codec first = new CcAes(new CcPlain(), "0123456701234567");
+        final Codec second = new CcAes(new CcPlain(), "7654321076543210");
+        final Identity identity = new Identity.Simple("urn:test:1");
+        final byte[] one = first.encode(identity);
+        final byte[] two = second.encode(identity);
+        for (int idx = 0; idx < 3; ++idx) {
+            MatcherAssert.assertThat(
+                second.decode(two).urn(),
+                Matchers.equalTo(identity.urn())
+            );
+            MatcherAssert.assertThat(
+                first.decode(one).urn(),
+                Matchers.equalTo(identity.urn())
+            );
+        }
+    }
+
+    /**
+     * CcAes can encode and decode in more threads than it keeps ciphers.
+     * @throws Exception any unexpected exception to throw
+     */
+    @Test
+    void encodesInManyThreads() throws Exception {
+        final Codec first = new CcAes(new CcPlain(), "0123456701234567");
+        final Codec second = new CcAes(new CcPlain(), "7654321076543210");
+        final int total = 32;
+        final ExecutorService service = Executors.newFixedThreadPool(total);
+        final Collection<Callable<Boolean>> tasks = new ArrayList<>(total);
+        for (int idx = 0; idx < total; ++idx) {
+            final Codec codec;
+            if (idx % 2 == 0) {
+                codec = first;
+            } else {
+                codec = second;
+            }
+            final Identity identity = new Identity.Simple(
+                String.format("urn:test:%d", idx)
+            );
+            tasks.add(
+                () -> {
+                    boolean same = true;
+                    for (int num = 0; num < 100; ++num) {
+                        same &= codec.decode(codec.encode(identity)).urn()
+                            .equals(identity.urn());
+                    }
+                    return same;
+                }
+            );
+        }
+        try {
+            for (final Future<Boolean> future : service.invokeAll(tasks)) {
+                MatcherAssert.assertThat(future.get(), Matchers.is(true));
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
     /**
      * CcAES can throw the right exception.
      * @throws Exception any unexpected exception to throw
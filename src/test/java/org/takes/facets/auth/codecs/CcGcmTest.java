@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.auth.codecs;
+
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import javax.crypto.spec.SecretKeySpec;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.takes.facets.auth.Identity;
+
+/**
+ * Test case for {@link CcGcm}.
+ * @since 2.0
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+final class CcGcmTest {
+
+    /**
+     * CcGcm can encode and decode.
+     * @throws Exception If fails
+     */
+    @Test
+    void encodesAndDecodes() throws Exception {
+        final Codec codec = new CcGcm(
+            new CcPlain(), "0123456701234567".getBytes()
+        );
+        final Identity identity = new Identity.Simple("urn:test:3");
+        final byte[] bytes = codec.encode(identity);
+        MatcherAssert.assertThat(
+            codec.decode(bytes).urn(),
+            Matchers.equalTo("urn:test:3")
+        );
+        MatcherAssert.assertThat(
+            bytes.length,
+            // @checkstyle MagicNumber (1 line)
+            Matchers.equalTo(new CcPlain().encode(identity).length + 29)
+        );
+    }
+
+    /**
+     * CcGcm can decode with an older key after rotation.
+     * @throws Exception If fails
+     */
+    @Test
+    void decodesWithRotatedKey() throws Exception {
+        final Map<Integer, Key> keys = new HashMap<>(0);
+        keys.put(1, new SecretKeySpec("0123456701234567".getBytes(), "AES"));
+        final byte[] bytes = new CcGcm(new CcPlain(), 1, keys).encode(
+            new Identity.Simple("urn:test:old")
+        );
+        keys.put(2, new SecretKeySpec("7654321076543210".getBytes(), "AES"));
+        final Codec codec = new CcGcm(new CcPlain(), 2, keys);
+        MatcherAssert.assertThat(
+            codec.decode(bytes).urn(),
+            Matchers.equalTo("urn:test:old")
+        );
+        MatcherAssert.assertThat(
+            codec.encode(new Identity.Simple("urn:test:new"))[0],
+            Matchers.equalTo((byte) 2)
+        );
+    }
+
+    /**
+     * CcGcm can reject modified bytes.
+     * @throws Exception If fails
+     */
+    @Test
+    void rejectsModifiedBytes() throws Exception {
+        final Codec codec = new CcGcm(
+            new CcPlain(), "0123456701234567".getBytes()
+        );
+        final byte[] bytes = codec.encode(new Identity.Simple("urn:test:5"));
+        bytes[bytes.length - 1] ^= 1;
+        Assertions.assertThrows(
+            DecodingException.class,
+            () -> codec.decode(bytes)
+        );
+    }
+
+    /**
+     * CcGcm can reject bytes encoded with an unknown key.
+     * @throws Exception If fails
+     */
+    @Test
+    void rejectsUnknownKey() throws Exception {
+        final Codec codec = new CcGcm(
+            new CcPlain(), "0123456701234567".getBytes()
+        );
+        final byte[] bytes = codec.encode(new Identity.Simple("urn:test:7"));
+        bytes[0] = (byte) 1;
+        Assertions.assertThrows(
+            DecodingException.class,
+            () -> codec.decode(bytes)
+        );
+    }
+}
@@ -27,6 +27,7 @@ import java.io.IOException;
 import javax.crypto.spec.SecretKeySpec;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.takes.facets.auth.Identity;
 
@@ -59,4 +60,25 @@ final class CcSignedTest {
             Matchers.equalTo(urn)
         );
     }
+
+    @Test
+    void rejectsBadSignatureAndVerifiesAgain() throws IOException {
+        final String alg = "HmacSHA256";
+        final CcSigned target = new CcSigned(
+            new CcPlain(),
+            alg,
+            new SecretKeySpec("secret".getBytes(), alg)
+        );
+        final byte[] bytes = target.encode(new Identity.Simple("urn:test:9"));
+        final byte[] broken = bytes.clone();
+        broken[broken.length - 1] ^= 1;
+        Assertions.assertThrows(
+            IOException.class,
+            () -> target.decode(broken)
+        );
+        MatcherAssert.assertThat(
+            target.decode(bytes).urn(),
+            Matchers.equalTo("urn:test:9")
+        );
+    }
 }
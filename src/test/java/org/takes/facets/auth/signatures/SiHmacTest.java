@@ -67,6 +67,26 @@ import org.llorllale.cactoos.matchers.Assertion;
         ).affirm();
     }
 
+    /**
+     * SiHmac can sign again with the same instance.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void signsRepeatedly() throws IOException {
+        final Signature signature = new SiHmac("key", SiHmac.HMAC512);
+        final byte[] data =
+            "The quick brown fox jumps over the lazy dog".getBytes();
+        signature.sign(data);
+        new Assertion<>(
+            "Must have the same signature again",
+            new String(signature.sign(data)),
+            new IsEqual<>(
+                // @checkstyle LineLength (1 line)
+                "b42af09057bac1e2d41708e48a902e09b5ff7f12ab428a4fe86653c73dd248fb82f948a549f7b791a5b41915ee4d1ec3935357e4e2317250d0372afa2ebeeb3a"
+            )
+        ).affirm();
+    }
+
     /**
      * Checks SiHmac equals method.
      * @throws Exception If some problem inside
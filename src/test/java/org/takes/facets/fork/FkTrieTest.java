@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.facets.fork;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.takes.rq.RqFake;
+import org.takes.rs.BodyPrint;
+import org.takes.rs.RsText;
+
+/**
+ * Test case for {@link FkTrie}.
+ * @since 2.0
+ */
+final class FkTrieTest {
+
+    /**
+     * FkTrie can gracefully work when no fork matches the request.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void gracefullyHandlesNoForkMatching() throws Exception {
+        MatcherAssert.assertThat(
+            new FkTrie(
+                new FkRegex("/doyoumatch?", "Hello. It's me."),
+                new FkRegex("/plzmatch!", "I am your father")
+            ).route(new RqFake("POST", "/idontmatch")).has(),
+            Matchers.equalTo(false)
+        );
+    }
+
+    /**
+     * FkTrie can pick the first matching fork, like FkChain does.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsTheOrderOfForks() throws Exception {
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                new FkTrie(
+                    new FkRegex("/users/admin", "admin"),
+                    new FkRegex("/u.*", "any"),
+                    new FkRegex("/users/[a-z]+", "user"),
+                    new FkRegex("/usErs/jeff", "jeff")
+                ).route(new RqFake("GET", "/users/jeff")).get()
+            ).asString(),
+            Matchers.equalTo("any")
+        );
+    }
+
+    /**
+     * FkTrie can match patterns case-insensitively and with
+     * optional characters.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void matchesLikeRegularExpressions() throws Exception {
+        final Fork fork = new FkTrie(
+            new FkRegex("/books?/[0-9]+", "book"),
+            new FkRegex("/Home", "home"),
+            new FkRegex("/a|/b", "either")
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                fork.route(new RqFake("GET", "/book/42")).get()
+            ).asString(),
+            Matchers.equalTo("book")
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(fork.route(new RqFake("GET", "/HOME/")).get())
+                .asString(),
+            Matchers.equalTo("home")
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(fork.route(new RqFake("GET", "/b")).get())
+                .asString(),
+            Matchers.equalTo("either")
+        );
+    }
+
+    /**
+     * FkTrie can ask other forks in their turn.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void asksOtherForksInOrder() throws Exception {
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                new FkTrie(
+                    new FkRegex("/x", "regex"),
+                    new FkMethods("POST", new RsText("post")),
+                    new FkRegex("/y", "late")
+                ).route(new RqFake("POST", "/y")).get()
+            ).asString(),
+            Matchers.equalTo("post")
+        );
+    }
+}
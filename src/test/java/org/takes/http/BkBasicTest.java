@@ -34,6 +34,10 @@ import java.net.HttpURLConnection;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.atomic.AtomicReference;
 import org.cactoos.bytes.BytesOf;
@@ -42,6 +46,7 @@ import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.llorllale.cactoos.matchers.Assertion;
 import org.llorllale.cactoos.matchers.HasString;
 import org.takes.Request;
@@ -52,7 +57,10 @@ import org.takes.rq.RqFake;
 import org.takes.rq.RqHeaders;
 import org.takes.rq.RqPrint;
 import org.takes.rq.RqSocket;
+import org.takes.rs.PushInputStream;
 import org.takes.rs.ResponseOf;
+import org.takes.rs.RsWithBody;
+import org.takes.tk.TkFiles;
 import org.takes.tk.TkText;
 
 /**
@@ -101,6 +109,25 @@ import org.takes.tk.TkText;
         );
     }
 
+    /**
+     * BkBasic can print a binary body as is.
+     *
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void printsBinaryBody() throws Exception {
+        final MkSocket socket = BkBasicTest.createMockSocket();
+        final byte[] body = {(byte) 0xCA, (byte) 0xFE, 0x00, (byte) 0xBA};
+        new BkBasic(req -> new RsWithBody(body)).accept(socket);
+        final byte[] output = socket.bufferedOutput().toByteArray();
+        MatcherAssert.assertThat(
+            Arrays.copyOfRange(
+                output, output.length - body.length, output.length
+            ),
+            Matchers.equalTo(body)
+        );
+    }
+
     /**
      * BkBasic can return HTTP status 404 when accessing invalid URL.
      *
@@ -224,6 +251,7 @@ import org.takes.tk.TkText;
                         BkBasicTest.POST,
                         BkBasicTest.HOST,
                         "Content-Length: 12",
+                        "Connection: close",
                         "",
                         "Hello Second"
                     ).asString().getBytes()
@@ -248,6 +276,181 @@ import org.takes.tk.TkText;
         );
     }
 
+    /**
+     * BkBasic can keep the connection open for the next request,
+     * which comes a bit later.
+     *
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsConnectionForNextRequest() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ServerSocket server = new ServerSocket(0)) {
+            new Thread(
+                () -> {
+                    try {
+                        new BkBasic(new TkText("Hello Again")).accept(
+                            server.accept()
+                        );
+                    } catch (final IOException exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                }
+            ).start();
+            try (Socket socket = new Socket(
+                server.getInetAddress(),
+                server.getLocalPort()
+            )
+            ) {
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF, "GET /a HTTP/1.1", BkBasicTest.HOST,
+                        "", ""
+                    ).asString().getBytes()
+                );
+                final InputStream input = socket.getInputStream();
+                // @checkstyle MagicNumber (1 line)
+                final byte[] buffer = new byte[4096];
+                while (!output.toString().contains("Again")) {
+                    output.write(buffer, 0, input.read(buffer));
+                }
+                // @checkstyle MagicNumber (1 line)
+                Thread.sleep(100L);
+                socket.getOutputStream().write(
+                    new Joined(
+                        BkBasicTest.CRLF, "GET /b HTTP/1.1", BkBasicTest.HOST,
+                        "Connection: close", "", ""
+                    ).asString().getBytes()
+                );
+                for (
+                    int count = input.read(buffer);
+                    count != -1;
+                    count = input.read(buffer)
+                ) {
+                    output.write(buffer, 0, count);
+                }
+            }
+        }
+        MatcherAssert.assertThat(
+            output.toString(),
+            RegexMatchers.containsPattern(
+                "(?s)Again.*?200 OK.*?Connection: close.*?Again"
+            )
+        );
+    }
+
+    /**
+     * BkBasic can keep the connection after the take returns the body
+     * of the request as the body of the response.
+     *
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keepsConnectionAfterEchoedBody() throws Exception {
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                new Joined(
+                    BkBasicTest.CRLF, "POST /echo HTTP/1.1", BkBasicTest.HOST,
+                    "Content-Length: 4", "", "pingGET /next HTTP/1.1",
+                    BkBasicTest.HOST, "Connection: close", "", ""
+                ).asString().getBytes()
+            )
+        );
+        new BkBasic(
+            req -> new ResponseOf(
+                () -> Arrays.asList("HTTP/1.1 200 OK", "Content-Length: 4"),
+                req::body
+            )
+        ).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            RegexMatchers.containsPattern("(?s)ping.*?200 OK")
+        );
+    }
+
+    /**
+     * BkBasic can answer HEAD without body and keep the connection
+     * for the next request.
+     *
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersHeadWithoutBody() throws Exception {
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                new Joined(
+                    BkBasicTest.CRLF, "HEAD /a HTTP/1.1", BkBasicTest.HOST,
+                    "", "GET /b HTTP/1.1", BkBasicTest.HOST,
+                    "Connection: close", "", ""
+                ).asString().getBytes()
+            )
+        );
+        new BkBasic(new TkText("0123456789")).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            RegexMatchers.matchesPattern(
+                String.join(
+                    "",
+                    "(?s)HTTP/1.1 200 OK\r\n",
+                    "(?:(?!Connection: close)[^\r]+\r\n)*\r\n",
+                    "HTTP/1.1 200 OK\r\n.*\r\n\r\n0123456789"
+                )
+            )
+        );
+    }
+
+    /**
+     * BkBasic can answer 431 to a request with too long head.
+     *
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void rejectsTooLongHead() throws Exception {
+        final char[] value = new char[20_000];
+        Arrays.fill(value, 'x');
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                new Joined(
+                    BkBasicTest.CRLF, "GET / HTTP/1.1", BkBasicTest.HOST,
+                    String.format("X-Long: %s", new String(value)), "", ""
+                ).asString().getBytes()
+            )
+        );
+        new BkBasic(new TkText("never")).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            Matchers.allOf(
+                Matchers.startsWith(
+                    "HTTP/1.1 431 Request Header Fields Too Large"
+                ),
+                Matchers.containsString("Connection: close"),
+                Matchers.not(Matchers.containsString("never"))
+            )
+        );
+    }
+
+    /**
+     * BkBasic can close the connection of HTTP/1.0 client.
+     *
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesConnectionOfOldClient() throws Exception {
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                new Joined(
+                    BkBasicTest.CRLF, "GET / HTTP/1.0", BkBasicTest.HOST,
+                    "", ""
+                ).asString().getBytes()
+            )
+        );
+        new BkBasic(new TkText("old")).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            Matchers.containsString("Connection: close")
+        );
+    }
+
     /**
      * BkBasic can return HTTP status 411 when a persistent connection request
      * has no Content-Length.
@@ -369,6 +572,64 @@ import org.takes.tk.TkText;
         );
     }
 
+    /**
+     * BkBasic can send a file as the body.
+     *
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsFileBody(@TempDir final Path temp) throws Exception {
+        Files.write(
+            temp.resolve("f.txt"), "file content".getBytes(StandardCharsets.UTF_8)
+        );
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                new Joined(
+                    BkBasicTest.CRLF, "GET /f.txt HTTP/1.1", BkBasicTest.HOST,
+                    "", ""
+                ).asString().getBytes()
+            )
+        );
+        new BkBasic(new TkFiles(temp.toFile())).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            RegexMatchers.containsPattern(
+                "Content-Length: 12\r\n\r\nfile content$"
+            )
+        );
+    }
+
+    /**
+     * BkBasic can let the body write itself to the socket.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void sendsPushedBody() throws Exception {
+        final MkSocket socket = new MkSocket(
+            new ByteArrayInputStream(
+                new Joined(
+                    BkBasicTest.CRLF, "GET / HTTP/1.1", BkBasicTest.HOST,
+                    "", ""
+                ).asString().getBytes()
+            )
+        );
+        new BkBasic(
+            req -> new ResponseOf(
+                () -> Collections.singletonList("HTTP/1.1 200 OK"),
+                () -> new PushInputStream(
+                    output -> output.write(
+                        "pushed".getBytes(StandardCharsets.UTF_8)
+                    )
+                )
+            )
+        ).accept(socket);
+        MatcherAssert.assertThat(
+            socket.bufferedOutput().toString(),
+            RegexMatchers.containsPattern("\r\n\r\npushed$")
+        );
+    }
+
     /**
      * BkBasic can return HTTP status 400 (Bad Request) when a request has an
      * invalid URI.
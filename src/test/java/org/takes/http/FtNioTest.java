@@ -0,0 +1,246 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.http;
+
+import com.jcabi.http.request.JdkRequest;
+import com.jcabi.http.response.RestResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.takes.facets.fork.FkRegex;
+import org.takes.facets.fork.TkFork;
+
+/**
+ * Test case for {@link FtNio}.
+ * @since 2.0
+ */
+final class FtNioTest {
+
+    /**
+     * FtNio can work.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void justWorks() throws Exception {
+        final ServerSocketChannel channel = FtNioTest.channel();
+        new FtRemote(
+            new FtNio(
+                new BkBasic(new TkFork(new FkRegex("/", "hello, nio!"))),
+                channel
+            ),
+            channel.socket(),
+            false
+        ).exec(
+            (URI home) -> new JdkRequest(home)
+                .fetch()
+                .as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_OK)
+                .assertBody(Matchers.startsWith("hello"))
+        );
+    }
+
+    /**
+     * FtNio can serve a few requests over the same connection,
+     * one after another.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesRequestsOverOneConnection() throws Exception {
+        final ServerSocketChannel channel = FtNioTest.channel();
+        new FtRemote(
+            new FtNio(
+                new BkBasic(
+                    new TkFork(
+                        new FkRegex("/first", "one!"),
+                        new FkRegex("/second", "two!")
+                    ),
+                    0,
+                    // @checkstyle MagicNumber (1 line)
+                    100
+                ),
+                channel
+            ),
+            channel.socket(),
+            false
+        ).exec(
+            (URI home) -> {
+                try (Socket socket = new Socket(home.getHost(), home.getPort())) {
+                    // @checkstyle MagicNumber (1 line)
+                    socket.setSoTimeout(5000);
+                    MatcherAssert.assertThat(
+                        FtNioTest.exchange(socket, "/first", "one!"),
+                        Matchers.startsWith("HTTP/1.1 200")
+                    );
+                    MatcherAssert.assertThat(
+                        FtNioTest.exchange(socket, "/second", "two!"),
+                        Matchers.containsString("two!")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * FtNio can close a connection, which doesn't send a complete head
+     * in time.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void closesIdleConnections() throws Exception {
+        final ServerSocketChannel channel = FtNioTest.channel();
+        new FtRemote(
+            new FtNio(
+                new BkBasic(new TkFork(new FkRegex("/", "idle"))),
+                channel,
+                Executors.newCachedThreadPool(),
+                // @checkstyle MagicNumber (1 line)
+                500
+            ),
+            channel.socket(),
+            false
+        ).exec(
+            (URI home) -> {
+                try (Socket socket = new Socket(
+                    home.getHost(), home.getPort()
+                )) {
+                    // @checkstyle MagicNumber (1 line)
+                    socket.setSoTimeout(5000);
+                    final OutputStream output = socket.getOutputStream();
+                    output.write(
+                        "GET / HTTP/1.1\r\nHost: loc".getBytes(
+                            StandardCharsets.UTF_8
+                        )
+                    );
+                    output.flush();
+                    MatcherAssert.assertThat(
+                        socket.getInputStream().read(),
+                        Matchers.equalTo(-1)
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * FtNio can answer with 431 to a head, which is too long.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void rejectsTooLongHead() throws Exception {
+        final ServerSocketChannel channel = FtNioTest.channel();
+        new FtRemote(
+            new FtNio(
+                new BkBasic(new TkFork(new FkRegex("/", "long"))),
+                channel
+            ),
+            channel.socket(),
+            false
+        ).exec(
+            (URI home) -> {
+                try (Socket socket = new Socket(
+                    home.getHost(), home.getPort()
+                )) {
+                    // @checkstyle MagicNumber (1 line)
+                    socket.setSoTimeout(5000);
+                    final OutputStream output = socket.getOutputStream();
+                    output.write(
+                        String.format(
+                            "GET / HTTP/1.1\r\nX-Long: %s\r\n\r\n",
+                            // @checkstyle MagicNumber (1 line)
+                            String.join("", Collections.nCopies(20_000, "x"))
+                        ).getBytes(StandardCharsets.UTF_8)
+                    );
+                    output.flush();
+                    final ByteArrayOutputStream baos =
+                        new ByteArrayOutputStream();
+                    final InputStream input = socket.getInputStream();
+                    // @checkstyle MagicNumber (1 line)
+                    final byte[] buf = new byte[1024];
+                    for (int len = input.read(buf); len >= 0;
+                        len = input.read(buf)) {
+                        baos.write(buf, 0, len);
+                    }
+                    MatcherAssert.assertThat(
+                        new String(baos.toByteArray(), StandardCharsets.UTF_8),
+                        Matchers.startsWith("HTTP/1.1 431")
+                    );
+                }
+            }
+        );
+    }
+
+    /**
+     * Send a request and wait for the response containing the text.
+     * @param socket Socket
+     * @param path Path to request
+     * @param text Text to expect
+     * @return Response received
+     * @throws Exception If fails
+     */
+    private static String exchange(final Socket socket, final String path,
+        final String text) throws Exception {
+        final OutputStream output = socket.getOutputStream();
+        output.write(
+            String.format(
+                "GET %s HTTP/1.1\r\nHost: localhost\r\n\r\n", path
+            ).getBytes(StandardCharsets.UTF_8)
+        );
+        output.flush();
+        final InputStream input = socket.getInputStream();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        final byte[] buf = new byte[1024];
+        while (!new String(baos.toByteArray(), StandardCharsets.UTF_8)
+            .contains(text)) {
+            final int len = input.read(buf);
+            if (len < 0) {
+                break;
+            }
+            baos.write(buf, 0, len);
+        }
+        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Open a server socket channel at a random port.
+     * @return Channel
+     * @throws Exception If fails
+     */
+    private static ServerSocketChannel channel() throws Exception {
+        final ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.bind(new InetSocketAddress(0));
+        return channel;
+    }
+}
@@ -52,4 +52,20 @@ final class OptionsTest {
         );
     }
 
+    /**
+     * Options can understand virtual threads.
+     */
+    @Test
+    void understandsVirtualThreads() {
+        final Options opts = new Options("--threads=virtual");
+        MatcherAssert.assertThat(
+            opts.virtual(),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            opts.threads(),
+            Matchers.greaterThan(0)
+        );
+    }
+
 }
@@ -25,9 +25,12 @@ package org.takes.rq;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cactoos.io.InputStreamOf;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.takes.Request;
 
 /**
  * Test case for {@link RqHeaders}.
@@ -123,4 +126,35 @@ final class RqHeadersTest {
         );
     }
 
+    /**
+     * RqHeaders.Base can reuse the index of RqHeaders.Indexed.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void reusesIndexOfIndexedRequest() throws IOException {
+        final AtomicInteger reads = new AtomicInteger();
+        final Request req = new RqHeaders.Indexed(
+            new RequestOf(
+                () -> {
+                    reads.incrementAndGet();
+                    return Arrays.asList(
+                        "GET /i",
+                        "Host: www.takes.org",
+                        "ACCEPT: text/html"
+                    );
+                },
+                () -> new InputStreamOf("")
+            )
+        );
+        MatcherAssert.assertThat(
+            new RqHeaders.Base(req).header("Accept"),
+            Matchers.hasItem("text/html")
+        );
+        MatcherAssert.assertThat(
+            new RqHeaders.Smart(req).single("host"),
+            Matchers.equalTo("www.takes.org")
+        );
+        MatcherAssert.assertThat(reads.get(), Matchers.equalTo(1));
+    }
+
 }
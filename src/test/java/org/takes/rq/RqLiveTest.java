@@ -23,14 +23,19 @@
  */
 package org.takes.rq;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.lang.StringUtils;
 import org.cactoos.io.InputStreamOf;
 import org.cactoos.text.Joined;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.takes.HttpException;
 import org.takes.Request;
 
 /**
@@ -154,4 +159,123 @@ final class RqLiveTest {
         );
     }
 
+    /**
+     * RqLive can leave a markable stream right at the body.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void leavesMarkableStreamAtBody() throws IOException {
+        final InputStream input = new BufferedInputStream(
+            new InputStreamOf(
+                new Joined(
+                    RqLiveTest.CRLF,
+                    "POST /first HTTP/1.1",
+                    "Content-Length: 3",
+                    "",
+                    "abcGET /second HTTP/1.1",
+                    "",
+                    ""
+                )
+            )
+        );
+        final Request first = new RqLive(input);
+        MatcherAssert.assertThat(
+            first.body().read(new byte[3]),
+            Matchers.equalTo(3)
+        );
+        MatcherAssert.assertThat(
+            new RqLive(input).head(),
+            Matchers.contains("GET /second HTTP/1.1")
+        );
+    }
+
+    /**
+     * RqLive can parse a head bigger than its buffer.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void parsesLargeHead() throws IOException {
+        final String value = StringUtils.repeat("x", 10_000);
+        final Request req = new RqLive(
+            new InputStreamOf(
+                new Joined(
+                    RqLiveTest.CRLF,
+                    "GET /large HTTP/1.1",
+                    String.format("X-Large: %s", value),
+                    "",
+                    "body"
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            new RqHeaders.Base(req).header("x-large"),
+            Matchers.hasItem(value)
+        );
+        MatcherAssert.assertThat(
+            new RqPrint(req).printBody(),
+            Matchers.equalTo("body")
+        );
+    }
+
+    /**
+     * RqLive can reject a head longer than the limit.
+     */
+    @Test
+    void rejectsTooLongHead() {
+        Assertions.assertThrows(
+            HttpException.class,
+            () -> new RqLive(
+                new BufferedInputStream(
+                    new InputStreamOf(
+                        new Joined(
+                            RqLiveTest.CRLF,
+                            "GET /long HTTP/1.1",
+                            String.format(
+                                "X-Long: %s", StringUtils.repeat("x", 100)
+                            ),
+                            "",
+                            ""
+                        )
+                    )
+                ),
+                // @checkstyle MagicNumber (1 line)
+                64
+            )
+        );
+    }
+
+    /**
+     * RqLive can stop reading a stream without mark at the end of the head.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void leavesPipelinedRequestInStream() throws IOException {
+        final InputStream input = new FilterInputStream(
+            new InputStreamOf(
+                new Joined(
+                    RqLiveTest.CRLF,
+                    "POST /first HTTP/1.1",
+                    "Content-Length: 3",
+                    "",
+                    "abcGET /second HTTP/1.1",
+                    "",
+                    ""
+                )
+            )
+        ) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+        final Request first = new RqLive(input);
+        MatcherAssert.assertThat(
+            first.body().read(new byte[3]),
+            Matchers.equalTo(3)
+        );
+        MatcherAssert.assertThat(
+            new RqLive(input).head(),
+            Matchers.contains("GET /second HTTP/1.1")
+        );
+    }
 }
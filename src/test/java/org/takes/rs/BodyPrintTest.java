@@ -47,4 +47,13 @@ import org.junit.jupiter.api.Test;
             )
         );
     }
+
+    @Test
+    void countsBytes() throws IOException {
+        MatcherAssert.assertThat(
+            "must count bytes, not chars",
+            new BodyPrint(new RsText("\u20ac1")).length(),
+            new IsEqual<>(4)
+        );
+    }
 }
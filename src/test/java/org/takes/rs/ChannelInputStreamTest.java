@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.cactoos.io.InputOf;
+import org.cactoos.text.TextOf;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.llorllale.cactoos.matchers.IsText;
+
+/**
+ * Test case for {@link ChannelInputStream}.
+ * @since 2.0
+ */
+final class ChannelInputStreamTest {
+
+    /**
+     * ChannelInputStream can read the whole file.
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void readsFile(@TempDir final Path temp) throws Exception {
+        final Path file = temp.resolve("a.txt");
+        Files.write(file, "hello, file!".getBytes(StandardCharsets.UTF_8));
+        try (InputStream stream = new ChannelInputStream(file)) {
+            MatcherAssert.assertThat(
+                stream.available(),
+                // @checkstyle MagicNumber (1 line)
+                Matchers.equalTo(12)
+            );
+            MatcherAssert.assertThat(
+                new TextOf(new InputOf(stream)),
+                new IsText("hello, file!")
+            );
+        }
+    }
+
+    /**
+     * ChannelInputStream can transfer a region of the file to a channel.
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void transfersRegion(@TempDir final Path temp) throws Exception {
+        final Path file = temp.resolve("b.txt");
+        Files.write(file, "0123456789".getBytes(StandardCharsets.UTF_8));
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        // @checkstyle MagicNumber (1 line)
+        try (ChannelInputStream stream = new ChannelInputStream(file, 2L, 5L)) {
+            MatcherAssert.assertThat(
+                stream.read(),
+                Matchers.equalTo((int) '2')
+            );
+            MatcherAssert.assertThat(
+                stream.transfer(Channels.newChannel(baos)),
+                // @checkstyle MagicNumber (1 line)
+                Matchers.equalTo(4L)
+            );
+            MatcherAssert.assertThat(stream.read(), Matchers.equalTo(-1));
+        }
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.equalTo("3456")
+        );
+    }
+
+    /**
+     * ChannelInputStream can stop at the end of a file shorter than
+     * the region.
+     * @param temp Temporary folder
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void stopsAtEndOfFile(@TempDir final Path temp) throws Exception {
+        final Path file = temp.resolve("c.txt");
+        Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+        // @checkstyle MagicNumber (1 line)
+        try (InputStream stream = new ChannelInputStream(file, 1L, 100L)) {
+            MatcherAssert.assertThat(
+                new TextOf(new InputOf(stream)),
+                new IsText("bc")
+            );
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link GzipInputStream}.
+ * @since 2.0
+ */
+final class GzipInputStreamTest {
+
+    /**
+     * GzipInputStream can compress a large stream.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void compressesLargeStream() throws IOException {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] data = new byte[100_000];
+        new Random(0L).nextBytes(data);
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(
+                new GZIPInputStream(
+                    new GzipInputStream(
+                        new ByteArrayInputStream(data),
+                        Deflater.DEFAULT_COMPRESSION
+                    )
+                )
+            ),
+            Matchers.equalTo(data)
+        );
+    }
+
+    /**
+     * GzipInputStream can compress streams one after another with
+     * different levels.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void compressesWithDifferentLevels() throws IOException {
+        final byte[] data = "abc abc abc abc".getBytes();
+        for (final int level : new int[] {
+            Deflater.BEST_SPEED, Deflater.NO_COMPRESSION,
+            Deflater.BEST_COMPRESSION,
+        }) {
+            MatcherAssert.assertThat(
+                IOUtils.toByteArray(
+                    new GZIPInputStream(
+                        new GzipInputStream(
+                            new ByteArrayInputStream(data), level
+                        )
+                    )
+                ),
+                Matchers.equalTo(data)
+            );
+        }
+    }
+
+    /**
+     * GzipInputStream can compress an empty stream.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void compressesEmptyStream() throws IOException {
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(
+                new GZIPInputStream(
+                    new GzipInputStream(
+                        new ByteArrayInputStream(new byte[0]),
+                        Deflater.DEFAULT_COMPRESSION
+                    )
+                )
+            ).length,
+            Matchers.equalTo(0)
+        );
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test case for {@link PushInputStream}.
+ * @since 2.0
+ */
+final class PushInputStreamTest {
+
+    /**
+     * PushInputStream can be read as a usual stream.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void readsWrittenBytes() throws IOException {
+        MatcherAssert.assertThat(
+            IOUtils.toString(
+                new PushInputStream(
+                    output -> output.write(
+                        "pushed".getBytes(StandardCharsets.UTF_8)
+                    )
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo("pushed")
+        );
+    }
+
+    /**
+     * PushInputStream can write straight to the output and keep it open.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void writesToOpenOutput() throws IOException {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        new PushInputStream(
+            output -> {
+                output.write("abc".getBytes(StandardCharsets.UTF_8));
+                output.close();
+            }
+        ).writeTo(baos);
+        baos.write('d');
+        MatcherAssert.assertThat(
+            new String(baos.toByteArray(), StandardCharsets.UTF_8),
+            Matchers.equalTo("abcd")
+        );
+        MatcherAssert.assertThat(closed.get(), Matchers.is(false));
+    }
+
+    /**
+     * PushInputStream can run the procedure only once.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void writesOnlyOnce() throws IOException {
+        final PushInputStream stream = new PushInputStream(
+            output -> output.write('x')
+        );
+        stream.writeTo(new ByteArrayOutputStream());
+        Assertions.assertThrows(
+            IOException.class,
+            () -> stream.writeTo(new ByteArrayOutputStream())
+        );
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.cactoos.text.Joined;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.IsText;
+import org.takes.Response;
+import org.takes.rq.RqFake;
+
+/**
+ * Test case for {@link RsChunked}.
+ * @since 2.0
+ */
+final class RsChunkedTest {
+
+    /**
+     * RsChunked can replace content length with chunked encoding.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void replacesContentLength() throws IOException {
+        MatcherAssert.assertThat(
+            new HeadPrint(new RsChunked(new RsWithBody("hello"))),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 200 OK",
+                    "Transfer-Encoding: chunked",
+                    "",
+                    ""
+                )
+            )
+        );
+    }
+
+    /**
+     * RsChunked can send every portion of the body as a chunk.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void encodesBodyInChunks() throws IOException {
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                new RsChunked(
+                    new RsWithBody(
+                        new SequenceInputStream(
+                            new ByteArrayInputStream(
+                                "hel".getBytes(StandardCharsets.UTF_8)
+                            ),
+                            new ByteArrayInputStream(
+                                "lo!".getBytes(StandardCharsets.UTF_8)
+                            )
+                        )
+                    )
+                )
+            ),
+            new IsText("3\r\nhel\r\n3\r\nlo!\r\n0\r\n\r\n")
+        );
+    }
+
+    /**
+     * RsChunked can split a large body into chunks of limited size.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void limitsSizeOfChunks() throws IOException {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] data = new byte[10_000];
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                new RsChunked(new RsWithBody(new ByteArrayInputStream(data)))
+            ).asString(),
+            Matchers.allOf(
+                Matchers.startsWith("2000\r\n"),
+                Matchers.containsString("\r\n710\r\n"),
+                Matchers.endsWith("\r\n0\r\n\r\n")
+            )
+        );
+    }
+
+    /**
+     * RsChunked can send the body as is to HTTP/1.0 clients.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void sendsBodyAsIsToLegacyClients() throws IOException {
+        final Response res = new RsChunked(
+            new RsWithBody("as is"),
+            new RqFake(Arrays.asList("GET / HTTP/1.0", "Host: x"), "")
+        );
+        MatcherAssert.assertThat(
+            new HeadPrint(res).asString(),
+            Matchers.not(Matchers.containsString("Transfer-Encoding"))
+        );
+        MatcherAssert.assertThat(new BodyPrint(res), new IsText("as is"));
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new RsChunked(
+                    new RsWithBody("hi"),
+                    new RqFake(Arrays.asList("GET / HTTP/1.1", "Host: x"), "")
+                )
+            ).asString(),
+            Matchers.containsString("Transfer-Encoding: chunked")
+        );
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.io.IOUtils;
+import org.cactoos.text.Joined;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.IsText;
+import org.takes.Response;
+
+/**
+ * Test case for {@link RsCompressed}.
+ * @since 2.0
+ */
+final class RsCompressedTest {
+
+    /**
+     * RsCompressed can send compressed body in chunks.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void compressesInChunks() throws IOException {
+        final String text = "compressed text: €";
+        final Response response = new RsCompressed(new RsText(text));
+        MatcherAssert.assertThat(
+            new HeadPrint(response),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 200 OK",
+                    "Content-Type: text/plain",
+                    "Content-Encoding: gzip",
+                    "Vary: Accept-Encoding",
+                    "Transfer-Encoding: chunked",
+                    "",
+                    ""
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toString(
+                new GZIPInputStream(
+                    new ByteArrayInputStream(
+                        RsCompressedTest.unchunk(response.body())
+                    )
+                ),
+                StandardCharsets.UTF_8
+            ),
+            Matchers.equalTo(text)
+        );
+    }
+
+    /**
+     * Decode the body from chunks.
+     * @param body Body in chunks
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    private static byte[] unchunk(final InputStream body) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataInputStream input = new DataInputStream(body)) {
+            while (true) {
+                final StringBuilder line = new StringBuilder();
+                for (int chr = input.read(); chr != '\r'; chr = input.read()) {
+                    line.append((char) chr);
+                }
+                input.readByte();
+                // @checkstyle MagicNumber (1 line)
+                final int size = Integer.parseInt(line.toString(), 16);
+                final byte[] chunk = new byte[size];
+                input.readFully(chunk);
+                input.readShort();
+                if (size == 0) {
+                    break;
+                }
+                baos.write(chunk);
+            }
+        }
+        return baos.toByteArray();
+    }
+}
@@ -23,6 +23,10 @@
  */
 package org.takes.rs;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import org.cactoos.Text;
 import org.cactoos.bytes.BytesOf;
 import org.cactoos.iterable.IterableOf;
@@ -89,4 +93,35 @@ final class RsPrintTest {
             )
         );
     }
+
+    /**
+     * RsPrint can print a binary body, byte by byte.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void printsBinaryBody() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final byte[] body = new byte[256];
+        for (int idx = 0; idx < body.length; ++idx) {
+            body[idx] = (byte) idx;
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new RsPrint(
+            new ResponseOf(
+                () -> new IterableOf<>("HTTP/1.1 200 OK"),
+                () -> new ByteArrayInputStream(body)
+            )
+        ).print(baos);
+        final byte[] head = "HTTP/1.1 200 OK\r\n\r\n".getBytes(
+            StandardCharsets.US_ASCII
+        );
+        MatcherAssert.assertThat(
+            "must print head and body bytes as is",
+            baos.toByteArray(),
+            new IsEqual<>(
+                ByteBuffer.allocate(head.length + body.length)
+                    .put(head).put(body).array()
+            )
+        );
+    }
 }
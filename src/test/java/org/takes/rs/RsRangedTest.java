@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.rs;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.cactoos.text.Joined;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.IsText;
+import org.takes.Response;
+import org.takes.rq.RqFake;
+
+/**
+ * Test case for {@link RsRanged}.
+ * @since 2.0
+ */
+final class RsRangedTest {
+
+    /**
+     * Body of responses.
+     */
+    private static final byte[] BODY =
+        "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * RsRanged can return the whole body without Range.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void returnsWholeBody() throws IOException {
+        final Response res = RsRangedTest.ranged();
+        MatcherAssert.assertThat(
+            new RsPrint(res),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 200 OK",
+                    "Content-Type: text/plain",
+                    "Accept-Ranges: bytes",
+                    "Content-Length: 16",
+                    "",
+                    "0123456789abcdef"
+                )
+            )
+        );
+    }
+
+    /**
+     * RsRanged can return one range.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void returnsOneRange() throws IOException {
+        MatcherAssert.assertThat(
+            new RsPrint(RsRangedTest.ranged("Range: bytes=2-5")),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 206 Partial Content",
+                    "Content-Type: text/plain",
+                    "Accept-Ranges: bytes",
+                    "Content-Range: bytes 2-5/16",
+                    "Content-Length: 4",
+                    "",
+                    "2345"
+                )
+            )
+        );
+    }
+
+    /**
+     * RsRanged can return the suffix of the body.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void returnsSuffix() throws IOException {
+        MatcherAssert.assertThat(
+            new BodyPrint(RsRangedTest.ranged("Range: bytes=-3")),
+            new IsText("def")
+        );
+    }
+
+    /**
+     * RsRanged can return a few ranges as multipart.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void returnsMultipartRanges() throws IOException {
+        final Response res = RsRangedTest.ranged("Range: bytes=0-1, 14-");
+        final String head = new HeadPrint(res).asString();
+        final String boundary = head.replaceAll(
+            "(?s).*boundary=([0-9a-f]+).*", "$1"
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(res),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "",
+                    String.format("--%s", boundary),
+                    "Content-Type: text/plain",
+                    "Content-Range: bytes 0-1/16",
+                    "",
+                    "01",
+                    String.format("--%s", boundary),
+                    "Content-Type: text/plain",
+                    "Content-Range: bytes 14-15/16",
+                    "",
+                    "ef",
+                    String.format("--%s--", boundary),
+                    ""
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            head,
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206"),
+                Matchers.containsString(
+                    String.format(
+                        "Content-Length: %d",
+                        new BodyPrint(res).asString().length()
+                    )
+                )
+            )
+        );
+    }
+
+    /**
+     * RsRanged can refuse unsatisfiable ranges.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void refusesUnsatisfiableRange() throws IOException {
+        MatcherAssert.assertThat(
+            new HeadPrint(RsRangedTest.ranged("Range: bytes=100-")),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 416 Range Not Satisfiable",
+                    "Accept-Ranges: bytes",
+                    "Content-Length: 0",
+                    "Content-Range: bytes */16",
+                    "",
+                    ""
+                )
+            )
+        );
+    }
+
+    /**
+     * RsRanged can ignore Range when If-Range doesn't match.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void ignoresRangeOfChangedBody() throws IOException {
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                RsRangedTest.ranged("Range: bytes=2-5", "If-Range: \"old\"")
+            ),
+            new IsText("0123456789abcdef")
+        );
+    }
+
+    /**
+     * Make a ranged response for a request with the headers.
+     * @param headers Headers of the request
+     * @return Response
+     */
+    private static Response ranged(final String... headers) {
+        final String[] head = new String[headers.length + 2];
+        head[0] = "GET /f.txt";
+        head[1] = "Host: www.example.com";
+        System.arraycopy(headers, 0, head, 2, headers.length);
+        return new RsRanged(
+            new RsWithType(
+                new RsWithStatus(HttpURLConnection.HTTP_OK), "text/plain"
+            ),
+            new RqFake(Arrays.asList(head), ""),
+            RsRangedTest.BODY.length,
+            (offset, length) -> new ByteArrayInputStream(
+                RsRangedTest.BODY, offset.intValue(), length.intValue()
+            )
+        );
+    }
+}
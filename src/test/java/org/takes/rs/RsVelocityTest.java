@@ -24,13 +24,18 @@
 package org.takes.rs;
 
 import java.io.IOException;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.Collections;
 import java.util.HashMap;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.takes.misc.StateAwareInputStream;
 
 /**
@@ -102,4 +107,62 @@ final class RsVelocityTest {
             Matchers.equalTo("Hello World!\n")
         );
     }
+
+    /**
+     * RsVelocity can keep the template at URL parsed.
+     * @param temp Temporary folder
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void keepsTemplateAtUrl(@TempDir final Path temp) throws IOException {
+        final Path file = temp.resolve("kept.vm");
+        Files.write(file, "one, ${n}".getBytes(StandardCharsets.UTF_8));
+        final URL url = file.toUri().toURL();
+        RsVelocityTest.render(url, false);
+        Files.write(file, "two, ${n}".getBytes(StandardCharsets.UTF_8));
+        MatcherAssert.assertThat(
+            RsVelocityTest.render(url, false),
+            Matchers.equalTo("one, 1")
+        );
+    }
+
+    /**
+     * RsVelocity can parse the template at URL again, when it's modified.
+     * @param temp Temporary folder
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void reloadsModifiedTemplate(@TempDir final Path temp)
+        throws IOException {
+        final Path file = temp.resolve("reloaded.vm");
+        Files.write(file, "first, ${n}".getBytes(StandardCharsets.UTF_8));
+        // @checkstyle MagicNumber (1 line)
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L));
+        final URL url = file.toUri().toURL();
+        RsVelocityTest.render(url, true);
+        Files.write(file, "second, ${n}".getBytes(StandardCharsets.UTF_8));
+        // @checkstyle MagicNumber (1 line)
+        Files.setLastModifiedTime(file, FileTime.fromMillis(2_000_000L));
+        MatcherAssert.assertThat(
+            RsVelocityTest.render(url, true),
+            Matchers.equalTo("second, 1")
+        );
+    }
+
+    /**
+     * Render the template.
+     * @param url URL of the template
+     * @param reload Parse it again, if modified
+     * @return Text
+     * @throws IOException If fails
+     */
+    private static String render(final URL url, final boolean reload)
+        throws IOException {
+        return IOUtils.toString(
+            new RsVelocity(
+                ".", url, () -> Collections.singletonMap("n", 1), reload
+            ).body(),
+            StandardCharsets.UTF_8
+        );
+    }
 }
@@ -24,9 +24,13 @@
 package org.takes.rs;
 
 import com.jcabi.matchers.XhtmlMatchers;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.transform.URIResolver;
 import javax.xml.transform.stream.StreamSource;
 import org.apache.commons.io.IOUtils;
 import org.cactoos.Text;
@@ -38,6 +42,9 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.llorllale.cactoos.matchers.EndsWith;
 import org.takes.misc.StateAwareInputStream;
+import org.takes.rs.xe.RsXembly;
+import org.takes.rs.xe.XeAppend;
+import org.takes.rs.xe.XeStylesheet;
 
 /**
  * Test case for {@link RsXslt}.
@@ -244,4 +251,255 @@ final class RsXsltTest {
         );
     }
 
+    /**
+     * RsXSLT can compile the stylesheet only once.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void compilesStylesheetOnce() throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        final URIResolver resolver = RsXsltTest.counted(count);
+        for (final String name : new String[] {"Ann", "Bob"}) {
+            MatcherAssert.assertThat(
+                new RsPrint(
+                    new RsXslt(
+                        new RsText(RsXsltTest.xml("/once.xsl", name)),
+                        resolver
+                    )
+                ),
+                new EndsWith(String.format("Hi, %s!", name))
+            );
+        }
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * RsXSLT can skip the resolver, when the stylesheet is compiled.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void resolvesStylesheetOnce() throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        final URIResolver origin = RsXsltTest.counted(new AtomicInteger());
+        final URIResolver resolver = (href, base) -> {
+            count.incrementAndGet();
+            return origin.resolve(href, base);
+        };
+        for (final String name : new String[] {"Ike", "Jo"}) {
+            MatcherAssert.assertThat(
+                new RsPrint(
+                    new RsXslt(
+                        new RsText(RsXsltTest.xml("/resolved.xsl", name)),
+                        resolver
+                    )
+                ),
+                new EndsWith(String.format("Hi, %s!", name))
+            );
+        }
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * RsXSLT can keep stylesheets of different resolvers apart, even if
+     * their hrefs and classes are the same.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void keepsStylesheetsBySystemId() throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        for (final String word : new String[] {"Hello", "Bye"}) {
+            MatcherAssert.assertThat(
+                new RsPrint(
+                    new RsXslt(
+                        new RsText(RsXsltTest.xml("/same.xsl", "Fred")),
+                        RsXsltTest.counted(count, word)
+                    )
+                ),
+                new EndsWith(String.format("%s, Fred!", word))
+            );
+        }
+    }
+
+    /**
+     * RsXSLT can compile a stylesheet without system ID every time.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void compilesStylesheetWithoutSystemId() throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        final URIResolver resolver = (href, base) -> {
+            count.incrementAndGet();
+            return new StreamSource(RsXsltTest.greeting("Hey"));
+        };
+        for (final String name : new String[] {"Gus", "Hal"}) {
+            MatcherAssert.assertThat(
+                new RsPrint(
+                    new RsXslt(
+                        new RsText(RsXsltTest.xml("/anon.xsl", name)),
+                        resolver
+                    )
+                ),
+                new EndsWith(String.format("Hey, %s!", name))
+            );
+        }
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(2));
+    }
+
+    /**
+     * RsXSLT can compile the stylesheet every time in reload mode,
+     * if it's not known when it's modified.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void reloadsStylesheet() throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        final URIResolver resolver = RsXsltTest.counted(count);
+        for (final String name : new String[] {"Carl", "Dora"}) {
+            MatcherAssert.assertThat(
+                new RsPrint(
+                    new RsXslt(
+                        new RsText(RsXsltTest.xml("/reload.xsl", name)),
+                        resolver,
+                        true
+                    )
+                ),
+                new EndsWith(String.format("Hi, %s!", name))
+            );
+        }
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(2));
+    }
+
+    /**
+     * RsXSLT can transform the DOM of RsXembly.
+     * @throws IOException If some problem inside
+     */
+    @Test
+    void transformsXemblyDom() throws IOException {
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new RsXslt(
+                    new RsXembly(
+                        new XeStylesheet("/dom.xsl"),
+                        new XeAppend("p", new XeAppend("name", "Eve"))
+                    ),
+                    RsXsltTest.counted(new AtomicInteger())
+                )
+            ),
+            new EndsWith("Hi, Eve!")
+        );
+    }
+
+    /**
+     * Make XML with a stylesheet.
+     * @param href Stylesheet
+     * @param name Name
+     * @return XML
+     */
+    private static InputStreamOf xml(final String href, final String name) {
+        return new InputStreamOf(
+            new Joined(
+                " ",
+                String.format(
+                    "<?xml-stylesheet href='%s' type='text/xsl'?>", href
+                ),
+                String.format("<p><name>%s</name></p>", name)
+            )
+        );
+    }
+
+    /**
+     * Make a resolver, which counts calls.
+     * @param count Counter
+     * @return Resolver
+     */
+    private static URIResolver counted(final AtomicInteger count) {
+        return RsXsltTest.counted(count, "Hi");
+    }
+
+    /**
+     * Make a resolver, which counts stylesheets read and greets with
+     * the word. The system ID of the stylesheet is made of the word
+     * and the href.
+     * @param count Counter
+     * @param word Greeting
+     * @return Resolver
+     */
+    private static URIResolver counted(final AtomicInteger count,
+        final String word) {
+        return (href, base) -> new StreamSource(
+            new RsXsltTest.Counted(RsXsltTest.greeting(word), count),
+            String.format("urn:test:%s:%s", word, href)
+        );
+    }
+
+    /**
+     * Make a stylesheet, which greets with the word.
+     * @param word Greeting
+     * @return Stylesheet
+     */
+    private static InputStreamOf greeting(final String word) {
+        return new InputStreamOf(
+            new Joined(
+                " ",
+                "<stylesheet version='2.0'",
+                " xmlns='http://www.w3.org/1999/XSL/Transform'>",
+                "<output method='text'/>",
+                "<template match='/'>",
+                String.format(
+                    "%s, <value-of select='/p/name'/>!</template>", word
+                ),
+                "</stylesheet>"
+            )
+        );
+    }
+
+    /**
+     * Stream, which counts itself when it's read first.
+     * @since 2.0
+     */
+    private static final class Counted extends FilterInputStream {
+
+        /**
+         * Counter.
+         */
+        private final AtomicInteger count;
+
+        /**
+         * Whether it's read already.
+         */
+        private boolean done;
+
+        /**
+         * Ctor.
+         * @param input Original stream
+         * @param counter Counter
+         */
+        Counted(final InputStream input, final AtomicInteger counter) {
+            super(input);
+            this.count = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            this.mark();
+            return super.read();
+        }
+
+        @Override
+        public int read(final byte[] buf, final int off, final int len)
+            throws IOException {
+            this.mark();
+            return super.read(buf, off, len);
+        }
+
+        /**
+         * Count it, if it's read first.
+         */
+        private void mark() {
+            if (!this.done) {
+                this.done = true;
+                this.count.incrementAndGet();
+            }
+        }
+    }
 }
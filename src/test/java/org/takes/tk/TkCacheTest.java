@@ -0,0 +1,275 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.IsText;
+import org.takes.Take;
+import org.takes.rq.RqFake;
+import org.takes.rs.BodyPrint;
+import org.takes.rs.ResponseOf;
+import org.takes.rs.RsText;
+import org.takes.rs.RsWithHeader;
+
+/**
+ * Test case for {@link TkCache}.
+ * @since 2.0
+ */
+final class TkCacheTest {
+
+    /**
+     * TkCache can return the cached response.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void returnsCachedResponse() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCache(
+            req -> new RsText(String.format("#%d", count.incrementAndGet()))
+        );
+        take.act(new RqFake("GET", "/a"));
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/a"))),
+            new IsText("#1")
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/b"))),
+            new IsText("#2")
+        );
+    }
+
+    /**
+     * TkCache can skip responses, which must not be stored.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void skipsNotStoredResponse() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take counted = new TkCache(
+            req -> {
+                count.incrementAndGet();
+                return new RsWithHeader(
+                    new RsText("no"), "Cache-Control", "no-store, max-age=60"
+                );
+            }
+        );
+        counted.act(new RqFake("GET", "/c"));
+        counted.act(new RqFake("GET", "/c"));
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(2));
+    }
+
+    /**
+     * TkCache can keep a response per value of Vary header.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void variesByHeader() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCache(
+            req -> new RsWithHeader(
+                new RsText(String.format("#%d", count.incrementAndGet())),
+                "Vary", "Accept-Language"
+            ),
+            // @checkstyle MagicNumber (1 line)
+            60_000L, 1024L, "Accept-Language"
+        );
+        take.act(TkCacheTest.request("en"));
+        take.act(TkCacheTest.request("fr"));
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(TkCacheTest.request("en"))),
+            new IsText("#1")
+        );
+    }
+
+    /**
+     * TkCache can evict the least recently used responses.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void evictsLeastRecentlyUsed() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCache(
+            req -> new RsText(String.format("#%d", count.incrementAndGet())),
+            // @checkstyle MagicNumber (1 line)
+            60_000L, 150L
+        );
+        take.act(new RqFake("GET", "/x"));
+        take.act(new RqFake("GET", "/y"));
+        take.act(new RqFake("GET", "/x"));
+        take.act(new RqFake("GET", "/z"));
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/x"))),
+            new IsText("#1")
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/y"))),
+            new IsText("#4")
+        );
+    }
+
+    /**
+     * TkCache can pass through a body without length, which is longer
+     * than the budget, without reading all of it into memory.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void passesLongBodies() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        // @checkstyle MagicNumber (1 line)
+        final char[] chars = new char[1000];
+        Arrays.fill(chars, 'a');
+        final String text = new String(chars);
+        final Take take = new TkCache(
+            req -> {
+                count.incrementAndGet();
+                return new ResponseOf(
+                    Collections.singletonList("HTTP/1.1 200 OK"),
+                    new ByteArrayInputStream(
+                        text.getBytes(StandardCharsets.UTF_8)
+                    )
+                );
+            },
+            // @checkstyle MagicNumber (1 line)
+            60_000L, 100L
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/long"))),
+            new IsText(text)
+        );
+        take.act(new RqFake("GET", "/long"));
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(2));
+    }
+
+    /**
+     * TkCache can keep responses to HTTP/1.0 and HTTP/1.1 apart.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void keysByProtocol() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCache(
+            req -> new RsText(String.format("#%d", count.incrementAndGet()))
+        );
+        take.act(
+            new RqFake(Collections.singletonList("GET /v HTTP/1.1"), "")
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                take.act(
+                    new RqFake(
+                        Collections.singletonList("GET /v HTTP/1.0"), ""
+                    )
+                )
+            ),
+            new IsText("#2")
+        );
+    }
+
+    /**
+     * TkCache can bypass requests with Authorization or Cookie, unless
+     * their responses are public.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void bypassesPersonalRequests() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCache(
+            req -> new RsText(String.format("#%d", count.incrementAndGet()))
+        );
+        take.act(
+            new RqFake(Arrays.asList("GET /p", "Authorization: Basic YTpi"), "")
+        );
+        take.act(new RqFake(Arrays.asList("GET /p", "Cookie: id=1"), ""));
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/p"))),
+            new IsText("#3")
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                take.act(new RqFake(Arrays.asList("GET /p", "Cookie: a=2"), ""))
+            ),
+            new IsText("#4")
+        );
+        final Take shared = new TkCache(
+            req -> new RsWithHeader(
+                new RsText(String.format("#%d", count.incrementAndGet())),
+                "Cache-Control", "public, max-age=60"
+            )
+        );
+        shared.act(new RqFake(Arrays.asList("GET /q", "Cookie: a=3"), ""));
+        MatcherAssert.assertThat(
+            new BodyPrint(
+                shared.act(
+                    new RqFake(Arrays.asList("GET /q", "Cookie: b=4"), "")
+                )
+            ),
+            new IsText("#5")
+        );
+    }
+
+    /**
+     * TkCache can skip responses with malformed numbers in headers.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void skipsMalformedHeaders() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCache(
+            req -> {
+                count.incrementAndGet();
+                return new RsWithHeader(
+                    new RsWithHeader(
+                        new RsText("bad"), "Content-Length", "three"
+                    ),
+                    "Cache-Control", "max-age=99999999999999999999"
+                );
+            }
+        );
+        take.act(new RqFake("GET", "/m"));
+        take.act(new RqFake("GET", "/m"));
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(2));
+    }
+
+    /**
+     * Make a request with the language.
+     * @param lang Language
+     * @return Request
+     */
+    private static RqFake request(final String lang) {
+        return new RqFake(
+            Arrays.asList(
+                "GET /v", "Host: x",
+                String.format("Accept-Language: %s", lang)
+            ),
+            ""
+        );
+    }
+}
@@ -23,13 +23,18 @@
  */
 package org.takes.tk;
 
+import java.util.Arrays;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.HasString;
 import org.llorllale.cactoos.matchers.StartsWith;
 import org.takes.HttpException;
+import org.takes.Take;
 import org.takes.rq.RqFake;
 import org.takes.rs.HeadPrint;
+import org.takes.rs.RsPrint;
 
 /**
  * Test case for {@link TkClasspath}.
@@ -56,6 +61,88 @@ final class TkClasspathTest {
         );
     }
 
+    /**
+     * TkClasspath can return a range of the resource.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void returnsRangeOfResource() throws Exception {
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new TkClasspath().act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /org/takes/Take.class",
+                            "Host: y",
+                            "Range: bytes=0-3"
+                        ),
+                        ""
+                    )
+                )
+            ),
+            new HasString("Content-Length: 4")
+        );
+    }
+
+    /**
+     * TkClasspath can serve the precompressed resource.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesPrecompressedResource() throws Exception {
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new TkClasspath("/org/takes/tk", "gzip").act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /sidecar.txt",
+                            "Host: z",
+                            "Accept-Encoding: gzip"
+                        ),
+                        ""
+                    )
+                )
+            ),
+            new HasString("Content-Encoding: gzip")
+        );
+    }
+
+    /**
+     * TkClasspath can serve resources from memory, compressed if accepted.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesResourcesFromMemory() throws Exception {
+        // @checkstyle MagicNumber (1 line)
+        final Take take = new TkClasspath("/org/takes", 1L << 20);
+        for (int idx = 0; idx < 2; ++idx) {
+            MatcherAssert.assertThat(
+                new HeadPrint(
+                    take.act(
+                        new RqFake(
+                            Arrays.asList(
+                                "GET /Take.class",
+                                "Host: m",
+                                "Accept-Encoding: gzip"
+                            ),
+                            ""
+                        )
+                    )
+                ),
+                Matchers.allOf(
+                    new HasString("Content-Encoding: gzip"),
+                    new HasString("ETag: ")
+                )
+            );
+        }
+        MatcherAssert.assertThat(
+            new RsPrint(
+                take.act(new RqFake("GET", "/tk/sidecar.txt"))
+            ),
+            new HasString("Content-Length: 16\r\n")
+        );
+    }
+
     /**
      * TkClasspath can throw when resource not found.
      */
@@ -0,0 +1,224 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.IsText;
+import org.takes.Take;
+import org.takes.rq.RqFake;
+import org.takes.rs.BodyPrint;
+import org.takes.rs.RsText;
+import org.takes.rs.RsWithHeader;
+
+/**
+ * Test case for {@link TkCoalesced}.
+ * @since 2.0
+ */
+final class TkCoalescedTest {
+
+    /**
+     * TkCoalesced can call the original take once for concurrent requests.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void coalescesConcurrentRequests() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCoalesced(
+            req -> {
+                // @checkstyle MagicNumber (1 line)
+                TimeUnit.MILLISECONDS.sleep(500L);
+                return new RsText(
+                    String.format("#%d", count.incrementAndGet())
+                );
+            }
+        );
+        final int total = 8;
+        final ExecutorService service = Executors.newFixedThreadPool(total);
+        final Collection<Callable<String>> tasks = new ArrayList<>(total);
+        for (int idx = 0; idx < total; ++idx) {
+            tasks.add(
+                () -> new BodyPrint(
+                    take.act(new RqFake("GET", "/x"))
+                ).asString()
+            );
+        }
+        try {
+            final List<String> bodies = new ArrayList<>(total);
+            for (final Future<String> future : service.invokeAll(tasks)) {
+                bodies.add(future.get());
+            }
+            MatcherAssert.assertThat(
+                bodies,
+                Matchers.everyItem(Matchers.equalTo("#1"))
+            );
+        } finally {
+            service.shutdown();
+        }
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/x"))),
+            new IsText("#2")
+        );
+    }
+
+    /**
+     * TkCoalesced can pass personal requests through.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void passesPersonalRequests() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCoalesced(
+            req -> new RsText(String.format("#%d", count.incrementAndGet()))
+        );
+        take.act(
+            new RqFake(Arrays.asList("GET /y HTTP/1.1", "Cookie: a=1"), "")
+        );
+        take.act(new RqFake("POST", "/y"));
+        MatcherAssert.assertThat(
+            new BodyPrint(take.act(new RqFake("GET", "/y"))),
+            new IsText("#3")
+        );
+    }
+
+    /**
+     * TkCoalesced can rethrow the exception of the original take.
+     */
+    @Test
+    void rethrowsFailure() {
+        final Take take = new TkCoalesced(
+            req -> {
+                throw new IOException("broken");
+            }
+        );
+        MatcherAssert.assertThat(
+            Assertions.assertThrows(
+                IOException.class,
+                () -> take.act(new RqFake("GET", "/z"))
+            ).getMessage(),
+            Matchers.equalTo("broken")
+        );
+    }
+
+    /**
+     * TkCoalesced can release waiting requests, when the original take
+     * fails with an error.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void releasesWaitersOnError() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCoalesced(
+            req -> {
+                count.incrementAndGet();
+                // @checkstyle MagicNumber (1 line)
+                TimeUnit.MILLISECONDS.sleep(500L);
+                throw new AssertionError("fatal");
+            }
+        );
+        final ExecutorService service = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> leader = service.submit(
+                () -> take.act(new RqFake("GET", "/e"))
+            );
+            // @checkstyle MagicNumber (1 line)
+            TimeUnit.MILLISECONDS.sleep(100L);
+            final Future<?> waiter = service.submit(
+                () -> take.act(new RqFake("GET", "/e"))
+            );
+            for (final Future<?> future : Arrays.asList(leader, waiter)) {
+                MatcherAssert.assertThat(
+                    Assertions.assertThrows(
+                        ExecutionException.class,
+                        // @checkstyle MagicNumber (1 line)
+                        () -> future.get(5L, TimeUnit.SECONDS)
+                    ).getCause(),
+                    Matchers.instanceOf(AssertionError.class)
+                );
+            }
+        } finally {
+            service.shutdownNow();
+        }
+        MatcherAssert.assertThat(count.get(), Matchers.equalTo(1));
+    }
+
+    /**
+     * TkCoalesced can make a response for each waiting request, when
+     * the response sets a cookie.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void doesntShareCookies() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final Take take = new TkCoalesced(
+            req -> {
+                final int num = count.incrementAndGet();
+                // @checkstyle MagicNumber (1 line)
+                TimeUnit.MILLISECONDS.sleep(500L);
+                return new RsWithHeader(
+                    new RsText(String.format("#%d", num)),
+                    String.format("Set-Cookie: session=%d", num)
+                );
+            }
+        );
+        final ExecutorService service = Executors.newFixedThreadPool(2);
+        try {
+            final Future<String> leader = service.submit(
+                () -> new BodyPrint(take.act(new RqFake("GET", "/c")))
+                    .asString()
+            );
+            // @checkstyle MagicNumber (1 line)
+            TimeUnit.MILLISECONDS.sleep(100L);
+            final Future<String> waiter = service.submit(
+                () -> new BodyPrint(take.act(new RqFake("GET", "/c")))
+                    .asString()
+            );
+            MatcherAssert.assertThat(
+                Arrays.asList(
+                    // @checkstyle MagicNumber (2 lines)
+                    leader.get(5L, TimeUnit.SECONDS),
+                    waiter.get(5L, TimeUnit.SECONDS)
+                ),
+                Matchers.contains("#1", "#2")
+            );
+        } finally {
+            service.shutdownNow();
+        }
+    }
+}
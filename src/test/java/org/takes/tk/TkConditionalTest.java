@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014-2019 Yegor Bugayenko
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included
+ * in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NON-INFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.takes.tk;
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.cactoos.list.ListOf;
+import org.cactoos.text.Joined;
+import org.hamcrest.MatcherAssert;
+import org.junit.jupiter.api.Test;
+import org.llorllale.cactoos.matchers.HasString;
+import org.llorllale.cactoos.matchers.IsText;
+import org.llorllale.cactoos.matchers.StartsWith;
+import org.takes.Response;
+import org.takes.rq.RqFake;
+import org.takes.rs.HeadPrint;
+import org.takes.rs.ResponseOf;
+import org.takes.rs.RsHeaders;
+import org.takes.rs.RsPrint;
+import org.takes.rs.RsText;
+
+/**
+ * Test case for {@link TkConditional}.
+ * @since 2.0
+ */
+final class TkConditionalTest {
+
+    /**
+     * TkConditional can answer 304 without reading the body.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersNotModifiedByEtag() throws Exception {
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkConditional(
+                    req -> new ResponseOf(
+                        () -> new ListOf<>(
+                            "HTTP/1.1 200 OK",
+                            "Content-Type: text/plain",
+                            "ETag: \"v1\"",
+                            "Cache-Control: max-age=60"
+                        ),
+                        () -> {
+                            throw new IOException("the body is read");
+                        }
+                    )
+                ).act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /a", "Host: x", "If-None-Match: \"v0\", W/\"v1\""
+                        ),
+                        ""
+                    )
+                )
+            ),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 304 Not Modified",
+                    "ETag: \"v1\"",
+                    "Cache-Control: max-age=60",
+                    "",
+                    ""
+                )
+            )
+        );
+    }
+
+    /**
+     * TkConditional can answer 304 by the time of the last modification.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersNotModifiedByDate() throws Exception {
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new TkConditional(
+                    req -> new ResponseOf(
+                        new ListOf<>(
+                            "HTTP/1.1 200 OK",
+                            "Last-Modified: Wed, 21 Oct 2015 07:28:00 GMT"
+                        ),
+                        new RsText("hi").body()
+                    )
+                ).act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /b", "Host: x",
+                            "If-Modified-Since: Wed, 21 Oct 2015 07:28:00 GMT"
+                        ),
+                        ""
+                    )
+                )
+            ),
+            new StartsWith("HTTP/1.1 304")
+        );
+    }
+
+    /**
+     * TkConditional can ignore invalid and future If-Modified-Since.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void ignoresInvalidDates() throws Exception {
+        final TkConditional take = new TkConditional(
+            req -> new ResponseOf(
+                new ListOf<>(
+                    "HTTP/1.1 200 OK",
+                    "Last-Modified: Wed, 21 Oct 2015 07:28:00 GMT"
+                ),
+                new RsText("hi").body()
+            )
+        );
+        for (final String since : Arrays.asList(
+            "garbage", "Fri, 31 Dec 9999 23:59:59 GMT"
+        )) {
+            MatcherAssert.assertThat(
+                new HeadPrint(
+                    take.act(
+                        new RqFake(
+                            Arrays.asList(
+                                "GET /b", "Host: x",
+                                String.format("If-Modified-Since: %s", since)
+                            ),
+                            ""
+                        )
+                    )
+                ),
+                new StartsWith("HTTP/1.1 200")
+            );
+        }
+    }
+
+    /**
+     * TkConditional can make the ETag of a dynamic response and match it.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void hashesDynamicResponse() throws Exception {
+        final TkConditional take = new TkConditional(
+            req -> new RsText("dynamic")
+        );
+        final String etag = new RsHeaders.Base(
+            take.act(new RqFake("GET", "/c"))
+        ).header("ETag").get(0);
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                take.act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /c", "Host: x",
+                            String.format("If-None-Match: %s", etag)
+                        ),
+                        ""
+                    )
+                )
+            ),
+            new StartsWith("HTTP/1.1 304")
+        );
+    }
+
+    /**
+     * TkConditional can return the full response when it's modified.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void returnsModifiedResponse() throws Exception {
+        final Response res = new TkConditional(
+            req -> new RsText("fresh")
+        ).act(
+            new RqFake(
+                Arrays.asList("GET /d", "Host: x", "If-None-Match: \"old\""),
+                ""
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(res),
+            new HasString("fresh")
+        );
+    }
+
+    /**
+     * TkConditional can pass through an unconditional response of
+     * unknown length, without reading its body.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void passesStreamsThrough() throws Exception {
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new TkConditional(
+                    req -> new ResponseOf(
+                        () -> new ListOf<>(
+                            "HTTP/1.1 200 OK",
+                            "Content-Type: text/csv"
+                        ),
+                        () -> {
+                            throw new IOException("the body is read");
+                        }
+                    )
+                ).act(new RqFake("GET", "/export"))
+            ),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 200 OK",
+                    "Content-Type: text/csv",
+                    "",
+                    ""
+                )
+            )
+        );
+    }
+}
@@ -25,15 +25,23 @@ package org.takes.tk;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Arrays;
 import org.apache.commons.io.FileUtils;
+import org.cactoos.text.Joined;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.llorllale.cactoos.matchers.HasString;
+import org.llorllale.cactoos.matchers.IsText;
 import org.llorllale.cactoos.matchers.StartsWith;
 import org.takes.HttpException;
+import org.takes.misc.Expires;
 import org.takes.rq.RqFake;
 import org.takes.rs.HeadPrint;
+import org.takes.rs.RsHeaders;
+import org.takes.rs.RsPrint;
 
 /**
  * Test case for {@link TkFiles}.
@@ -64,6 +72,154 @@ final class TkFilesTest {
         );
     }
 
+    /**
+     * TkFiles can report the exact length of the file.
+     * @param temp Temporary folder.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void reportsLengthOfFile(@TempDir final Path temp) throws Exception {
+        FileUtils.write(
+            temp.resolve("b.txt").toFile(), "four", StandardCharsets.UTF_8
+        );
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new TkFiles(temp.toFile()).act(
+                    new RqFake("GET", "/b.txt", "")
+                )
+            ),
+            new HasString("Content-Length: 4")
+        );
+    }
+
+    /**
+     * TkFiles can return a range of the file.
+     * @param temp Temporary folder.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void returnsRangeOfFile(@TempDir final Path temp) throws Exception {
+        FileUtils.write(
+            temp.resolve("c.txt").toFile(), "0123456789", StandardCharsets.UTF_8
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(
+                new TkFiles(temp.toFile()).act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /c.txt", "Host: x", "Range: bytes=3-5"
+                        ),
+                        ""
+                    )
+                )
+            ),
+            new IsText(
+                new Joined(
+                    "\r\n",
+                    "HTTP/1.1 206 Partial Content",
+                    String.format(
+                        "ETag: \"%x-a\"",
+                        temp.resolve("c.txt").toFile().lastModified()
+                    ),
+                    String.format(
+                        "Last-Modified: %s",
+                        new Expires.Date(
+                            "EEE, dd MMM yyyy HH:mm:ss z",
+                            temp.resolve("c.txt").toFile().lastModified()
+                        ).print()
+                    ),
+                    "Accept-Ranges: bytes",
+                    "Content-Range: bytes 3-5/10",
+                    "Content-Length: 3",
+                    "",
+                    "345"
+                )
+            )
+        );
+    }
+
+    /**
+     * TkFiles can answer 304 when the file is not modified.
+     * @param temp Temporary folder.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void answersNotModified(@TempDir final Path temp) throws Exception {
+        FileUtils.write(
+            temp.resolve("d.txt").toFile(), "same", StandardCharsets.UTF_8
+        );
+        final TkFiles take = new TkFiles(temp.toFile());
+        final String etag = new RsHeaders.Base(
+            take.act(new RqFake("GET", "/d.txt", ""))
+        ).header("ETag").get(0);
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                take.act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /d.txt", "Host: x",
+                            String.format("If-None-Match: %s", etag)
+                        ),
+                        ""
+                    )
+                )
+            ),
+            new StartsWith("HTTP/1.1 304 Not Modified")
+        );
+    }
+
+    /**
+     * TkFiles can serve the precompressed file, if the client accepts it.
+     * @param temp Temporary folder.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void servesPrecompressedFile(@TempDir final Path temp) throws Exception {
+        FileUtils.write(
+            temp.resolve("e.css").toFile(), "plain", StandardCharsets.UTF_8
+        );
+        FileUtils.write(
+            temp.resolve("e.css.br").toFile(), "brotli", StandardCharsets.UTF_8
+        );
+        final TkFiles take = new TkFiles(temp.toFile(), "gzip", "br");
+        MatcherAssert.assertThat(
+            new RsPrint(
+                take.act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /e.css", "Host: x",
+                            "Accept-Encoding: gzip, br;q=0.5"
+                        ),
+                        ""
+                    )
+                )
+            ),
+            Matchers.allOf(
+                new HasString("Vary: Accept-Encoding\r\n"),
+                new HasString("Content-Encoding: br\r\n"),
+                new HasString("\r\n\r\nbrotli")
+            )
+        );
+        MatcherAssert.assertThat(
+            new RsPrint(
+                take.act(
+                    new RqFake(
+                        Arrays.asList(
+                            "GET /e.css", "Host: x",
+                            "Accept-Encoding: gzip, br;q=0"
+                        ),
+                        ""
+                    )
+                )
+            ),
+            Matchers.allOf(
+                new HasString("Vary: Accept-Encoding\r\n"),
+                new HasString("\r\n\r\nplain"),
+                Matchers.not(new HasString("Content-Encoding"))
+            )
+        );
+    }
+
     /**
      * TkFiles can throw when file not found.
      */
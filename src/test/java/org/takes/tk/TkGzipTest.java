@@ -23,12 +23,27 @@
  */
 package org.takes.tk;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.zip.Deflater;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.llorllale.cactoos.matchers.StartsWith;
+import org.takes.Request;
+import org.takes.Response;
+import org.takes.Take;
 import org.takes.rq.RqFake;
+import org.takes.rs.BodyPrint;
+import org.takes.rs.HeadPrint;
 import org.takes.rs.RsPrint;
+import org.takes.rs.RsText;
+import org.takes.rs.RsWithBody;
+import org.takes.rs.RsWithHeader;
+import org.takes.rs.RsWithType;
 
 /**
  * Test case for {@link TkGzip}.
@@ -81,4 +96,186 @@ final class TkGzipTest {
         );
     }
 
+    /**
+     * TkGzip can compress text, but not images.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void compressesTextOnly() throws Exception {
+        final String body = "Some text, which is long enough to compress";
+        final Take text = new TkGzip(
+            req -> new RsText(body), Deflater.BEST_SPEED, 10L, "text/*"
+        );
+        MatcherAssert.assertThat(
+            new HeadPrint(text.act(TkGzipTest.accepting())).asString(),
+            Matchers.containsString("Content-Encoding: gzip")
+        );
+        final Take image = new TkGzip(
+            req -> new RsWithType(new RsWithBody(body), "image/jpeg"),
+            Deflater.BEST_SPEED, 10L, "text/*"
+        );
+        MatcherAssert.assertThat(
+            new HeadPrint(image.act(TkGzipTest.accepting())).asString(),
+            Matchers.not(Matchers.containsString("Content-Encoding"))
+        );
+    }
+
+    /**
+     * TkGzip can skip short bodies.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void skipsShortBodies() throws Exception {
+        MatcherAssert.assertThat(
+            new HeadPrint(
+                new TkGzip(req -> new RsText("short")).act(
+                    TkGzipTest.accepting()
+                )
+            ).asString(),
+            Matchers.containsString("Content-Length: 5")
+        );
+    }
+
+    /**
+     * TkGzip can compress in memory for HTTP/1.0 clients.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void compressesInMemoryForLegacyClients() throws Exception {
+        final String head = new HeadPrint(
+            new TkGzip(
+                req -> new RsText("Some text, which is long enough"),
+                Deflater.BEST_SPEED, 10L, "text/*"
+            ).act(TkGzipTest.accepting("HTTP/1.0"))
+        ).asString();
+        MatcherAssert.assertThat(
+            head,
+            Matchers.allOf(
+                Matchers.containsString("Content-Encoding: gzip"),
+                Matchers.containsString("Content-Length: "),
+                Matchers.containsString("Vary: Accept-Encoding"),
+                Matchers.not(Matchers.containsString("Transfer-Encoding"))
+            )
+        );
+    }
+
+    /**
+     * TkGzip can say Vary in plain responses, which could be compressed,
+     * and compress responses without type.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void variesPlainResponses() throws Exception {
+        final Take take = new TkGzip(
+            req -> new RsWithBody("Some body without type, long enough"),
+            Deflater.BEST_SPEED, 10L, "text/*"
+        );
+        MatcherAssert.assertThat(
+            new HeadPrint(take.act(new RqFake("GET", "/"))).asString(),
+            Matchers.containsString("Vary: Accept-Encoding")
+        );
+        MatcherAssert.assertThat(
+            new HeadPrint(take.act(TkGzipTest.accepting())).asString(),
+            Matchers.containsString("Content-Encoding: gzip")
+        );
+    }
+
+    /**
+     * TkGzip can leave a 304 response without body.
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void skipsNotModifiedResponses() throws Exception {
+        final String head = new HeadPrint(
+            new TkGzip(
+                new TkConditional(
+                    req -> new RsWithHeader(
+                        new RsText("Some text, which is long enough"),
+                        "ETag: \"abc\""
+                    )
+                ),
+                Deflater.BEST_SPEED, 10L, "text/*"
+            ).act(
+                new RqFake(
+                    Arrays.asList(
+                        "GET / HTTP/1.1",
+                        "Host: www.example.com",
+                        "If-None-Match: \"abc\"",
+                        "Accept-Encoding: gzip"
+                    ),
+                    ""
+                )
+            )
+        ).asString();
+        MatcherAssert.assertThat(
+            head,
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 304 "),
+                Matchers.not(Matchers.containsString("Content-Encoding")),
+                Matchers.not(Matchers.containsString("Transfer-Encoding"))
+            )
+        );
+    }
+
+    /**
+     * TkGzip can leave a range of a file as it is.
+     * @param temp Temporary directory
+     * @throws Exception If some problem inside
+     */
+    @Test
+    void skipsRangesOfFiles(@TempDir final Path temp) throws Exception {
+        Files.write(
+            temp.resolve("range.txt"),
+            "Some text, which is long enough".getBytes(StandardCharsets.UTF_8)
+        );
+        final Response res = new TkGzip(
+            new TkFiles(temp.toFile()), Deflater.BEST_SPEED, 1L, "text/*"
+        ).act(
+            new RqFake(
+                Arrays.asList(
+                    "GET /range.txt HTTP/1.1",
+                    "Host: www.example.com",
+                    "Range: bytes=0-3",
+                    "Accept-Encoding: gzip"
+                ),
+                ""
+            )
+        );
+        MatcherAssert.assertThat(
+            new HeadPrint(res).asString(),
+            Matchers.allOf(
+                Matchers.startsWith("HTTP/1.1 206 "),
+                Matchers.containsString("Content-Range: bytes 0-3/"),
+                Matchers.not(Matchers.containsString("Content-Encoding"))
+            )
+        );
+        MatcherAssert.assertThat(
+            new BodyPrint(res).asString(),
+            Matchers.equalTo("Some")
+        );
+    }
+
+    /**
+     * Make a request, which accepts GZIP.
+     * @return Request
+     */
+    private static Request accepting() {
+        return TkGzipTest.accepting("HTTP/1.1");
+    }
+
+    /**
+     * Make a request of the protocol, which accepts GZIP.
+     * @param protocol Protocol
+     * @return Request
+     */
+    private static Request accepting(final String protocol) {
+        return new RqFake(
+            Arrays.asList(
+                String.format("GET / %s", protocol),
+                "Host: www.example.com",
+                "Accept-Encoding: gzip, deflate"
+            ),
+            ""
+        );
+    }
 }